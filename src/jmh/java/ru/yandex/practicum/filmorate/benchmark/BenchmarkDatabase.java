@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.DatasetGenerator;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    static final long SEED = 42;
+    static final int FRIENDS_PER_USER = 5;
+    static final int LIKES_PER_USER = 3;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    EmbeddedDatabase database;
+    FilmDbStorage filmStorage;
+    UserDbStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        GenreDbStorage genreStorage = new GenreDbStorage(jdbcTemplate);
+        genreStorage.reload();
+        filmStorage = new FilmDbStorage(jdbcTemplate, genreStorage);
+        userStorage = new UserDbStorage(jdbcTemplate);
+        seed(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        new DatasetGenerator(jdbcTemplate, SEED)
+                .generate(new DatasetGenerator.Scale(rows, rows, LIKES_PER_USER, FRIENDS_PER_USER));
+    }
+}
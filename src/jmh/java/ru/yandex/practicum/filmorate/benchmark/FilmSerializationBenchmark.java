@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Film film;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        film = new Film();
+        film.setId(1L);
+        film.setName("Film 1");
+        film.setDescription("Description 1");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(3L, "PG-13"));
+        film.setGenres(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"), new Genre(6L, "Боевик")));
+        film.setLikes(LongStream.rangeClosed(1, 50).boxed().collect(Collectors.toSet()));
+    }
+
+    @Benchmark
+    public byte[] writeFilm() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(film);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilmStorageBenchmark {
+
+    @Benchmark
+    public List<Film> findAll(BenchmarkDatabase db) {
+        return db.filmStorage.findAll();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms(BenchmarkDatabase db) {
+        return db.filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getFilmsByGenre(BenchmarkDatabase db) {
+        return db.filmStorage.getFilmsByGenre(1L);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserStorageBenchmark {
+
+    @Benchmark
+    public List<User> getFriends(BenchmarkDatabase db) {
+        return db.userStorage.getFriends(1L);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(BenchmarkDatabase db) {
+        return db.userStorage.getCommonFriends(1L, 2L);
+    }
+}
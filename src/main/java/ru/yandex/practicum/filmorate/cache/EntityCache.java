@@ -0,0 +1,198 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Потокобезопасный кеш сущностей, ограниченный суммарным весом записей — оценкой занимаемых ими байт.
+ * При переполнении вытесняет записи по алгоритму CLOCK: запись, к которой обращались с прошлого прохода
+ * стрелки, получает второй шанс. Запись тяжелее всего кеша в него не попадает.
+ * <p>
+ * Значение, прочитанное из хранилища, кладётся через {@link #putLoaded} со штампом, взятым до чтения:
+ * если за это время по ключу прошла запись, прочитанное значение могло устареть и в кеш не попадает.
+ */
+public class EntityCache<K, V> {
+
+    private static final int STAMP_STRIPES = 64;
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Map<K, Node<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final Object[] locks = createLocks();
+    private final Object evictionLock = new Object();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private Iterator<Map.Entry<K, Node<V>>> hand;
+
+    public EntityCache(String name, long maxWeight, ToLongFunction<V> weigher, MeterRegistry meterRegistry) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.hits = meterRegistry.counter("cache.gets", "cache", name, "result", "hit");
+        this.misses = meterRegistry.counter("cache.gets", "cache", name, "result", "miss");
+        this.evictions = meterRegistry.counter("cache.evictions", "cache", name);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.used.bytes", weight, AtomicLong::get).tag("cache", name).register(meterRegistry);
+    }
+
+    public V get(K key) {
+        Node<V> node = entries.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        node.referenced = true;
+        hits.increment();
+        return node.value;
+    }
+
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Штамп ключа, который нужно взять до чтения значения из хранилища и передать в {@link #putLoaded}.
+     */
+    public long stamp(K key) {
+        return stamps.get(stripe(key));
+    }
+
+    public void putLoaded(K key, V value, long stamp) {
+        Node<V> node = node(value);
+        synchronized (stripeLock(key)) {
+            if (stamps.get(stripe(key)) != stamp || node.weight > maxWeight) {
+                return;
+            }
+            if (entries.putIfAbsent(key, node) == null) {
+                weight.addAndGet(node.weight);
+            }
+        }
+        evictIfNeeded();
+    }
+
+    public void put(K key, V value) {
+        Node<V> node = node(value);
+        synchronized (stripeLock(key)) {
+            stamps.incrementAndGet(stripe(key));
+            if (node.weight > maxWeight) {
+                weight.addAndGet(-weightOf(entries.remove(key)));
+            } else {
+                weight.addAndGet(node.weight - weightOf(entries.put(key, node)));
+            }
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Обновляет значение, только если оно уже в кеше; иначе лишь отменяет идущие загрузки этого ключа.
+     */
+    public void update(K key, UnaryOperator<V> change) {
+        synchronized (stripeLock(key)) {
+            stamps.incrementAndGet(stripe(key));
+            Node<V> previous = entries.get(key);
+            if (previous == null) {
+                return;
+            }
+            // вытеснение идёт без блокировки полосы, поэтому заменяем только ту запись, которую прочитали
+            Node<V> node = node(change.apply(previous.value));
+            if (node.weight > maxWeight) {
+                if (entries.remove(key, previous)) {
+                    weight.addAndGet(-previous.weight);
+                }
+                return;
+            }
+            if (entries.replace(key, previous, node)) {
+                weight.addAndGet(node.weight - previous.weight);
+            }
+        }
+        evictIfNeeded();
+    }
+
+    public void invalidate(K key) {
+        synchronized (stripeLock(key)) {
+            stamps.incrementAndGet(stripe(key));
+            weight.addAndGet(-weightOf(entries.remove(key)));
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    private void evictIfNeeded() {
+        if (weight.get() <= maxWeight) {
+            return;
+        }
+        synchronized (evictionLock) {
+            // за два полных оборота стрелки каждая запись либо вытесняется, либо теряет второй шанс
+            int budget = 2 * entries.size() + 1;
+            while (weight.get() > maxWeight && budget-- > 0) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<K, Node<V>> candidate = hand.next();
+                Node<V> node = candidate.getValue();
+                if (node.referenced) {
+                    node.referenced = false;
+                } else if (entries.remove(candidate.getKey(), node)) {
+                    weight.addAndGet(-node.weight);
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private Node<V> node(V value) {
+        return new Node<>(value, weigher.applyAsLong(value));
+    }
+
+    private static long weightOf(Node<?> node) {
+        return node == null ? 0 : node.weight;
+    }
+
+    private int stripe(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private Object stripeLock(K key) {
+        return locks[stripe(key)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[STAMP_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private final long weight;
+        private volatile boolean referenced;
+
+        Node(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
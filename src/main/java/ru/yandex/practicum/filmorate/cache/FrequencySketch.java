@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch частот обращений к ключам с периодическим делением счётчиков пополам,
+ * чтобы давно популярные ключи не удерживали кеш вечно. Счётчики атомарные, блокировок нет:
+ * оценка и так приблизительная, поэтому инкремент, пришедший во время деления, может потеряться.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+    private final int size;
+    private final int resetThreshold;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int width) {
+        size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        counters = new AtomicIntegerArray(DEPTH * size);
+        mask = size - 1;
+        resetThreshold = size * 10;
+    }
+
+    void increment(Object key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; row++) {
+            counters.incrementAndGet(index(hash, row));
+        }
+        // делит ровно тот поток, чей инкремент достиг порога
+        if (additions.incrementAndGet() == resetThreshold) {
+            age();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters.get(index(hash, row)));
+        }
+        return frequency;
+    }
+
+    private int index(int hash, int row) {
+        int mixed = (hash ^ SEEDS[row]) * SEEDS[row];
+        return row * size + ((mixed ^ (mixed >>> 16)) & mask);
+    }
+
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, value -> value >>> 1);
+        }
+        additions.addAndGet(-resetThreshold / 2);
+    }
+}
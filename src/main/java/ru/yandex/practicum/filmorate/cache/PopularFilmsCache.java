@@ -0,0 +1,165 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Кеш сериализованных ответов /films/popular, ограниченный суммарным размером тел.
+ * Новый ответ вытесняет наименее часто запрашиваемый, только если сам запрашивается не реже (TinyLFU).
+ * Изменение лайков сбрасывает лишь те ответы, в окно которых фильм входит или может войти.
+ * Попадание в кеш обходится без блокировок; одновременные промахи по одному ключу считают окно один раз.
+ */
+@Component
+public class PopularFilmsCache {
+
+    private static final String CACHE_NAME = "popularFilms";
+
+    private final long maxBytes;
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+    private final Map<Key, Load> loading = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch = new FrequencySketch(1024);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    // меняются под монитором кеша, читаются без него
+    private volatile long usedBytes;
+    private volatile long generation;
+
+    public PopularFilmsCache(MeterRegistry meterRegistry,
+                             @Value("${filmorate.popular-cache.max-bytes:8388608}") long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.hits = meterRegistry.counter("cache.gets", "cache", CACHE_NAME, "result", "hit");
+        this.misses = meterRegistry.counter("cache.gets", "cache", CACHE_NAME, "result", "miss");
+        this.evictions = meterRegistry.counter("cache.evictions", "cache", CACHE_NAME);
+        Gauge.builder("cache.size", windows, Map::size).tag("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("cache.used.bytes", this, PopularFilmsCache::usedBytes).tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public record Key(int count, Long genreId, Integer year) {
+    }
+
+    /**
+     * Ответ вместе с окном рейтинга, на котором он построен: id фильмов и число лайков у последнего из них.
+     */
+    public record Window(byte[] body, Set<Long> filmIds, long lastFilmId, long lastFilmLikes, boolean full) {
+    }
+
+    public byte[] get(Key key, Function<Key, Window> loader) {
+        sketch.increment(key);
+        long startedAt = generation;
+        Window cached = windows.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.body();
+        }
+        misses.increment();
+        Load load = new Load(startedAt, new CompletableFuture<>());
+        Load running = loading.putIfAbsent(key, load);
+        if (running != null) {
+            // окно, которое начали считать до изменения лайков, этому запросу уже не годится
+            return running.generation() == startedAt ? join(running.window()).body() : loader.apply(key).body();
+        }
+        try {
+            Window loaded = loader.apply(key);
+            admit(key, loaded, startedAt);
+            load.window().complete(loaded);
+            return loaded.body();
+        } catch (RuntimeException exception) {
+            load.window().completeExceptionally(exception);
+            throw exception;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    private static Window join(CompletableFuture<Window> window) {
+        try {
+            return window.join();
+        } catch (CompletionException exception) {
+            throw exception.getCause() instanceof RuntimeException cause ? cause : exception;
+        }
+    }
+
+    /**
+     * Лайк или его снятие: likes — новое число лайков фильма, inCategory — попадает ли фильм в выборку ключа.
+     */
+    public synchronized void onLikeChanged(long filmId, long likes, Predicate<Key> inCategory) {
+        generation++;
+        windows.entrySet().removeIf(entry -> {
+            boolean stale = isAffected(entry.getValue(), entry.getKey(), filmId, likes, inCategory);
+            if (stale) {
+                usedBytes -= entry.getValue().body().length;
+            }
+            return stale;
+        });
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        windows.clear();
+        usedBytes = 0;
+    }
+
+    private static boolean isAffected(Window window, Key key, long filmId, long likes, Predicate<Key> inCategory) {
+        if (window.filmIds().contains(filmId)) {
+            return true;
+        }
+        if (!inCategory.test(key)) {
+            return false;
+        }
+        if (!window.full()) {
+            return true;
+        }
+        return likes > window.lastFilmLikes() || (likes == window.lastFilmLikes() && filmId < window.lastFilmId());
+    }
+
+    private synchronized void admit(Key key, Window window, long startedAt) {
+        // пока окно считалось, лайки могли его изменить: такой ответ отдаём, но не кешируем
+        if (startedAt != generation || window.body().length > maxBytes || windows.containsKey(key)) {
+            return;
+        }
+        int frequency = sketch.frequency(key);
+        while (usedBytes + window.body().length > maxBytes) {
+            Key victim = leastFrequent();
+            if (sketch.frequency(victim) > frequency) {
+                return;
+            }
+            usedBytes -= windows.remove(victim).body().length;
+            evictions.increment();
+        }
+        windows.put(key, window);
+        usedBytes += window.body().length;
+    }
+
+    private Key leastFrequent() {
+        Key victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (Key candidate : windows.keySet()) {
+            int frequency = sketch.frequency(candidate);
+            if (frequency < victimFrequency) {
+                victim = candidate;
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+
+    private long usedBytes() {
+        return usedBytes;
+    }
+
+    private record Load(long generation, CompletableFuture<Window> window) {
+    }
+}
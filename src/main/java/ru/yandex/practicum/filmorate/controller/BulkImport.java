@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+final class BulkImport {
+
+    private BulkImport() {
+    }
+
+    static <T> List<BulkItemResult> read(ObjectMapper objectMapper, InputStream body, Class<T> type,
+                                         Function<Iterator<T>, List<BulkItemResult>> importer) throws IOException {
+        try (MappingIterator<T> items = objectMapper.readerFor(type).readValues(body)) {
+            return importer.apply(items);
+        } catch (RuntimeException exception) {
+            if (exception.getCause() instanceof JsonProcessingException jsonException) {
+                throw jsonException;
+            }
+            throw exception;
+        }
+    }
+}
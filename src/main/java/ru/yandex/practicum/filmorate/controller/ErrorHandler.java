@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -7,6 +9,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 
 import java.util.stream.Collectors;
@@ -30,6 +33,12 @@ public class ErrorHandler {
         return new ErrorResponse("Ошибка валидации: " + errors);
     }
 
+    @ExceptionHandler({JsonProcessingException.class, RuntimeJsonMappingException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleJsonException(final Exception exception) {
+        return new ErrorResponse("Некорректный JSON: " + exception.getMessage());
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleIllegalArgumentException(final IllegalArgumentException exception) {
@@ -42,6 +51,12 @@ public class ErrorHandler {
         return new ErrorResponse("Ресурс не найден: " + exception.getMessage());
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailableException(final ServiceUnavailableException exception) {
+        return new ErrorResponse("Сервис временно недоступен: " + exception.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleGeneralException(final Exception exception) {
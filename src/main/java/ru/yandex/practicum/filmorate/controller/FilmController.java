@@ -1,12 +1,24 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -14,15 +26,54 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final FilmSearchService filmSearchService;
+    private final ObjectMapper objectMapper;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, FilmSearchService filmSearchService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.filmSearchService = filmSearchService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<Film> findAll() {
-        log.info("Returning all films, count: {}", filmService.findAll().size());
-        return filmService.findAll();
+    public ResponseEntity<List<Film>> findAll(@RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Set<Long> genre,
+                                              @RequestParam(required = false) Set<Long> mpa,
+                                              @RequestParam(required = false) Integer yearFrom,
+                                              @RequestParam(required = false) Integer yearTo,
+                                              @RequestParam(required = false) Integer minDuration) {
+        FilmFilter filter = new FilmFilter(genre, mpa, yearFrom, yearTo, minDuration);
+        if (!filter.isEmpty()) {
+            int pageSize = Pagination.resolveLimit(limit);
+            log.debug("Returning films matching {} after {}, limit {}", filter, after, pageSize);
+            return Pagination.page(filmSearchService.filter(filter, after, pageSize), pageSize, Film::getId);
+        }
+        if (!Pagination.isRequested(after, limit)) {
+            List<Film> films = filmService.findAll();
+            log.info("Returning all films, count: {}", films.size());
+            return ResponseEntity.ok(films);
+        }
+        int pageSize = Pagination.resolveLimit(limit);
+        log.debug("Returning films after {}, limit {}", after, pageSize);
+        return Pagination.page(filmService.findPage(after, pageSize), pageSize, Film::getId);
+    }
+
+    @GetMapping("/facets")
+    public FilmFacets getFacets(@RequestParam(required = false) Set<Long> genre,
+                                @RequestParam(required = false) Set<Long> mpa,
+                                @RequestParam(required = false) Integer yearFrom,
+                                @RequestParam(required = false) Integer yearTo,
+                                @RequestParam(required = false) Integer minDuration) {
+        FilmFilter filter = new FilmFilter(genre, mpa, yearFrom, yearTo, minDuration);
+        log.debug("Counting film facets for {}", filter);
+        return filmSearchService.getFacets(filter);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("Exporting all films");
+        return NdjsonExport.of(objectMapper, filmService::exportAll);
     }
 
     @PostMapping
@@ -31,8 +82,27 @@ public class FilmController {
         return filmService.add(film);
     }
 
+    @PostMapping("/bulk")
+    public List<BulkItemResult> createAll(InputStream body) throws IOException {
+        log.info("Bulk import of films");
+        return BulkImport.read(objectMapper, body, Film.class, filmService::addAll);
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam(defaultValue = "") String q,
+                             @RequestParam(defaultValue = "0") int offset,
+                             @RequestParam(required = false) Integer limit) {
+        int pageSize = Pagination.resolveLimit(limit);
+        log.debug("Searching films for '{}', offset {}, limit {}", q, offset, pageSize);
+        return filmSearchService.search(q, offset, pageSize);
+    }
+
     @GetMapping("/{id}")
-    public Film findById(@PathVariable Long id) {
+    public Film findById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(filmService.getETag(id))) {
+            log.debug("Film {} not modified", id);
+            return null;
+        }
         log.debug("Finding film with id: {}", id);
         return filmService.findById(id);
     }
@@ -56,13 +126,23 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopular(@RequestParam(defaultValue = "10") int count) {
-        log.debug("Requesting top {} popular films", count);
-        return filmService.getPopularFilms(count);
+    public ResponseEntity<byte[]> getPopular(@RequestParam(defaultValue = "10") int count,
+                                             @RequestParam(required = false) Long genreId,
+                                             @RequestParam(required = false) Integer year) {
+        log.debug("Requesting top {} popular films, genre {}, year {}", count, genreId, year);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(filmService.getPopularFilmsJson(count, genreId, year));
     }
 
     @GetMapping("/genre/{genreId}")
-    public List<Film> getFilmsByGenre(@PathVariable Long genreId) {
-        return filmService.getFilmsByGenre(genreId);
+    public ResponseEntity<List<Film>> getFilmsByGenre(@PathVariable Long genreId,
+                                                      @RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) Integer limit) {
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(filmService.getFilmsByGenre(genreId));
+        }
+        int pageSize = Pagination.resolveLimit(limit);
+        return Pagination.page(filmService.getFilmsByGenrePage(genreId, after, pageSize), pageSize, Film::getId);
     }
 }
\ No newline at end of file
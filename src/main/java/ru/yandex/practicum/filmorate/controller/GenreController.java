@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
@@ -18,12 +19,18 @@ public class GenreController {
     private final GenreService genreService;
 
     @GetMapping
-    public List<Genre> findAll() {
+    public List<Genre> findAll(WebRequest request) {
+        if (request.checkNotModified(genreService.getETag())) {
+            return null;
+        }
         return genreService.findAll();
     }
 
     @GetMapping("/{id}")
-    public Genre findById(@PathVariable Long id) {
+    public Genre findById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(genreService.getETag(id))) {
+            return null;
+        }
         return genreService.findById(id);
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.service.MpaRatingService;
 
@@ -18,12 +19,18 @@ public class MpaRatingController {
     private final MpaRatingService mpaRatingService;
 
     @GetMapping
-    public List<MpaRating> findAll() {
+    public List<MpaRating> findAll(WebRequest request) {
+        if (request.checkNotModified(mpaRatingService.getETag())) {
+            return null;
+        }
         return mpaRatingService.findAll();
     }
 
     @GetMapping("/{id}")
-    public MpaRating findById(@PathVariable Long id) {
+    public MpaRating findById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(mpaRatingService.getETag(id))) {
+            return null;
+        }
         return mpaRatingService.findById(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.List;
+import java.util.function.Function;
+
+final class Pagination {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    static boolean isRequested(Long after, Integer limit) {
+        return after != null || limit != null;
+    }
+
+    static int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit <= 0) {
+            throw new ValidationException("limit must be positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, Function<T, Long> idExtractor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(idExtractor.apply(items.get(items.size() - 1))));
+        }
+        return response.body(items);
+    }
+}
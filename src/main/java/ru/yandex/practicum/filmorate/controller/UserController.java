@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Slf4j
@@ -14,19 +22,38 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<User> findAll() {
-        log.info("Returning all users, count: {}", userService.findAll().size());
-        return userService.findAll();
+    public ResponseEntity<List<User>> findAll(@RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer limit) {
+        if (!Pagination.isRequested(after, limit)) {
+            List<User> users = userService.findAll();
+            log.info("Returning all users, count: {}", users.size());
+            return ResponseEntity.ok(users);
+        }
+        int pageSize = Pagination.resolveLimit(limit);
+        log.debug("Returning users after {}, limit {}", after, pageSize);
+        return Pagination.page(userService.findPage(after, pageSize), pageSize, User::getId);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("Exporting all users");
+        return NdjsonExport.of(objectMapper, userService::exportAll);
     }
 
     @GetMapping("/{id}")
-    public User findById(@PathVariable Long id) {
+    public User findById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(userService.getETag(id))) {
+            log.debug("User {} not modified", id);
+            return null;
+        }
         log.debug("Finding user with id: {}", id);
         return userService.findById(id);
     }
@@ -37,12 +64,24 @@ public class UserController {
         return userService.add(user);
     }
 
+    @PostMapping("/bulk")
+    public List<BulkItemResult> createAll(InputStream body) throws IOException {
+        log.info("Bulk import of users");
+        return BulkImport.read(objectMapper, body, User.class, userService::addAll);
+    }
+
     @PutMapping
     public User update(@Valid @RequestBody User user) {
         log.debug("Updating user with id: {}", user.getId());
         return userService.update(user);
     }
 
+    @GetMapping("/{id}/friends/suggested")
+    public List<User> getSuggestedFriends(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Requesting {} friend suggestions for user {}", limit, id);
+        return userService.getSuggestedFriends(id, limit);
+    }
+
     @GetMapping("/{id}/friends/{friendId}")
     public User getFriend(@PathVariable Long id, @PathVariable Long friendId) {
         log.debug("Getting friend {} of user {}", friendId, id);
@@ -72,4 +111,16 @@ public class UserController {
         log.debug("Requesting common friends for users {} and {}", id, otherId);
         return userService.getCommonFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/common/{otherId}/count")
+    public int countCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
+        log.debug("Counting common friends for users {} and {}", id, otherId);
+        return userService.countCommonFriends(id, otherId);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Requesting {} film recommendations for user {}", limit, id);
+        return userService.getRecommendations(id, limit);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Битмапы, адресуемые целым ключом (id пользователя, фильма, жанра). Не потокобезопасно:
+ * синхронизацию обеспечивает владелец.
+ */
+final class BitmapTable {
+    static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private RoaringBitmap[] bitmaps = new RoaringBitmap[0];
+
+    RoaringBitmap find(long key) {
+        return key < 0 || key >= bitmaps.length ? null : bitmaps[(int) key];
+    }
+
+    RoaringBitmap get(long key) {
+        RoaringBitmap bitmap = find(key);
+        return bitmap == null ? EMPTY : bitmap;
+    }
+
+    RoaringBitmap getOrCreate(int key) {
+        if (key >= bitmaps.length) {
+            bitmaps = Arrays.copyOf(bitmaps, Math.max(key + 1, bitmaps.length * 2));
+        }
+        if (bitmaps[key] == null) {
+            bitmaps[key] = new RoaringBitmap();
+        }
+        return bitmaps[key];
+    }
+
+    void add(long key, long value) {
+        getOrCreate(Math.toIntExact(key)).add(Math.toIntExact(value));
+    }
+
+    void remove(long key, long value) {
+        RoaringBitmap bitmap = find(key);
+        if (bitmap != null) {
+            bitmap.remove(Math.toIntExact(value));
+        }
+    }
+
+    void forEach(BitmapConsumer action) {
+        for (int key = 0; key < bitmaps.length; key++) {
+            if (bitmaps[key] != null && !bitmaps[key].isEmpty()) {
+                action.accept(key, bitmaps[key]);
+            }
+        }
+    }
+
+    void optimize() {
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                bitmap.runOptimize();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface BitmapConsumer {
+        void accept(int key, RoaringBitmap bitmap);
+    }
+}
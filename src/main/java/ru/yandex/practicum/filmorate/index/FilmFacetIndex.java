@@ -0,0 +1,231 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Component
+public class FilmFacetIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+    private FacetBitmaps facets = new FacetBitmaps();
+    private volatile boolean loaded;
+    private List<Film> changesDuringReload;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Как и {@link FilmSearchIndex#reload}, повторяет на новых битмапах фильмы, изменённые во время чтения.
+     */
+    public void reload(Consumer<Consumer<Film>> source) {
+        synchronized (reloadLock) {
+            setChangesDuringReload(new ArrayList<>());
+            FacetBitmaps rebuilt = new FacetBitmaps();
+            try {
+                source.accept(rebuilt::put);
+            } catch (RuntimeException exception) {
+                setChangesDuringReload(null);
+                throw exception;
+            }
+            rebuilt.optimize();
+            lock.writeLock().lock();
+            try {
+                changesDuringReload.forEach(rebuilt::put);
+                changesDuringReload = null;
+                facets = rebuilt;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(Film film) {
+        lock.writeLock().lock();
+        try {
+            facets.put(film);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(film);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setChangesDuringReload(List<Film> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        event.films().forEach(this::put);
+    }
+
+    public List<Long> filter(FilmFilter filter, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = facets.match(filter, null);
+            PeekableIntIterator iterator = matches.getIntIterator();
+            if (afterId != null && afterId >= 0) {
+                iterator.advanceIfNeeded((int) Math.min(afterId + 1, Integer.MAX_VALUE));
+            }
+            List<Long> ids = new ArrayList<>(Math.min(limit, matches.getCardinality()));
+            while (iterator.hasNext() && ids.size() < limit) {
+                ids.add((long) iterator.next());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Счётчики по каждому значению фасета считаются с учётом всех остальных фильтров, но без
+     * фильтра по самому этому фасету — так UI может показать, сколько фильмов добавит выбор ещё одного значения.
+     */
+    public FilmFacets count(FilmFilter filter) {
+        lock.readLock().lock();
+        try {
+            FilmFacets counts = new FilmFacets();
+            counts.setTotal(facets.match(filter, null).getCardinality());
+
+            RoaringBitmap withoutGenre = facets.match(filter, Facet.GENRE);
+            facets.byGenre.forEach((genreId, films) -> putCount(counts.getGenres(), (long) genreId,
+                    RoaringBitmap.andCardinality(withoutGenre, films)));
+
+            RoaringBitmap withoutMpa = facets.match(filter, Facet.MPA);
+            facets.byMpa.forEach((mpaId, films) -> putCount(counts.getMpa(), (long) mpaId,
+                    RoaringBitmap.andCardinality(withoutMpa, films)));
+
+            RoaringBitmap withoutYear = facets.match(filter, Facet.YEAR);
+            facets.byYear.forEach((year, films) -> putCount(counts.getYears(), year,
+                    RoaringBitmap.andCardinality(withoutYear, films)));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static <K> void putCount(Map<K, Integer> counts, K key, int count) {
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+
+    private enum Facet {
+        GENRE, MPA, YEAR, DURATION
+    }
+
+    private record Attributes(int[] genres, int mpa, Integer year, int duration) {
+    }
+
+    /**
+     * Битмапы id фильмов по значению каждого фасета. Не потокобезопасно.
+     */
+    private static final class FacetBitmaps {
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final BitmapTable byGenre = new BitmapTable();
+        private final BitmapTable byMpa = new BitmapTable();
+        private final NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+        private final NavigableMap<Integer, RoaringBitmap> byDuration = new TreeMap<>();
+        private final Map<Integer, Attributes> attributesByFilm = new HashMap<>();
+
+        void put(Film film) {
+            int filmId = Math.toIntExact(film.getId());
+            Attributes previous = attributesByFilm.remove(filmId);
+            if (previous != null) {
+                for (int genreId : previous.genres()) {
+                    byGenre.remove(genreId, filmId);
+                }
+                byMpa.remove(previous.mpa(), filmId);
+                if (previous.year() != null) {
+                    remove(byYear, previous.year(), filmId);
+                }
+                remove(byDuration, previous.duration(), filmId);
+            }
+
+            Attributes attributes = attributes(film);
+            all.add(filmId);
+            for (int genreId : attributes.genres()) {
+                byGenre.add(genreId, filmId);
+            }
+            byMpa.add(attributes.mpa(), filmId);
+            if (attributes.year() != null) {
+                byYear.computeIfAbsent(attributes.year(), year -> new RoaringBitmap()).add(filmId);
+            }
+            byDuration.computeIfAbsent(attributes.duration(), duration -> new RoaringBitmap()).add(filmId);
+            attributesByFilm.put(filmId, attributes);
+        }
+
+        private static Attributes attributes(Film film) {
+            int[] genres = film.getGenres().stream().map(Genre::getId).mapToInt(Math::toIntExact).distinct().toArray();
+            int mpa = film.getMpa() == null ? 0 : Math.toIntExact(film.getMpa().getId());
+            Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+            return new Attributes(genres, mpa, year, film.getDuration());
+        }
+
+        private static void remove(Map<Integer, RoaringBitmap> index, int key, int filmId) {
+            RoaringBitmap films = index.get(key);
+            if (films != null) {
+                films.remove(filmId);
+                if (films.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+
+        RoaringBitmap match(FilmFilter filter, Facet excluded) {
+            RoaringBitmap result = all.clone();
+            if (excluded != Facet.GENRE && filter.getGenres() != null && !filter.getGenres().isEmpty()) {
+                result.and(union(byGenre, filter.getGenres()));
+            }
+            if (excluded != Facet.MPA && filter.getMpa() != null && !filter.getMpa().isEmpty()) {
+                result.and(union(byMpa, filter.getMpa()));
+            }
+            if (excluded != Facet.YEAR && (filter.getYearFrom() != null || filter.getYearTo() != null)) {
+                int from = filter.getYearFrom() == null ? Integer.MIN_VALUE : filter.getYearFrom();
+                int to = filter.getYearTo() == null ? Integer.MAX_VALUE : filter.getYearTo();
+                result.and(RoaringBitmap.or(byYear.subMap(from, true, to, true).values().iterator()));
+            }
+            if (excluded != Facet.DURATION && filter.getMinDuration() != null) {
+                result.and(RoaringBitmap.or(byDuration.tailMap(filter.getMinDuration(), true).values().iterator()));
+            }
+            return result;
+        }
+
+        private static RoaringBitmap union(BitmapTable index, Set<Long> keys) {
+            RoaringBitmap union = new RoaringBitmap();
+            for (Long key : keys) {
+                union.or(index.get(key));
+            }
+            return union;
+        }
+
+        void optimize() {
+            all.runOptimize();
+            byGenre.optimize();
+            byMpa.optimize();
+            byYear.values().forEach(RoaringBitmap::runOptimize);
+            byDuration.values().forEach(RoaringBitmap::runOptimize);
+        }
+    }
+}
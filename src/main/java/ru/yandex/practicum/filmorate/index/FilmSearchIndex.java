@@ -0,0 +1,243 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Component
+public class FilmSearchIndex {
+
+    private static final int NAME_EXACT = 8;
+    private static final int NAME_PREFIX = 4;
+    private static final int DESCRIPTION_EXACT = 2;
+    private static final int DESCRIPTION_PREFIX = 1;
+    private static final Comparator<Hit> RANKING_ORDER = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingInt(Hit::filmId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+    private Postings postings = new Postings();
+    private volatile boolean loaded;
+    private List<Film> changesDuringReload;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Индекс строится без блокировки; фильмы, изменённые во время чтения, копятся в журнале
+     * и переиндексируются на новом словаре перед подменой, как в {@link FriendGraph#reload}.
+     */
+    public void reload(Consumer<Consumer<Film>> source) {
+        synchronized (reloadLock) {
+            setChangesDuringReload(new ArrayList<>());
+            Postings rebuilt = new Postings();
+            try {
+                source.accept(rebuilt::put);
+            } catch (RuntimeException exception) {
+                setChangesDuringReload(null);
+                throw exception;
+            }
+            lock.writeLock().lock();
+            try {
+                changesDuringReload.forEach(rebuilt::put);
+                changesDuringReload = null;
+                postings = rebuilt;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(Film film) {
+        lock.writeLock().lock();
+        try {
+            postings.put(film);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(film);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setChangesDuringReload(List<Film> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        event.films().forEach(this::put);
+    }
+
+    /**
+     * Фильмы, в названии или описании которых есть слова, начинающиеся с каждого слова запроса.
+     * Совпадение в названии весит больше, чем в описании, целое слово — больше, чем префикс.
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<TermMatch> matches = new ArrayList<>(terms.size());
+            RoaringBitmap found = null;
+            for (String term : terms) {
+                TermMatch match = postings.match(term);
+                matches.add(match);
+                RoaringBitmap any = RoaringBitmap.or(match.namePrefix(), match.descriptionPrefix());
+                found = found == null ? any : RoaringBitmap.and(found, any);
+                if (found.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            int window = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            PriorityQueue<Hit> top = new PriorityQueue<>(RANKING_ORDER.reversed());
+            for (int filmId : found) {
+                top.add(new Hit(filmId, score(filmId, matches)));
+                if (top.size() > window) {
+                    top.poll();
+                }
+            }
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING_ORDER);
+            List<Long> ids = new ArrayList<>(Math.max(0, ranked.size() - offset));
+            for (int i = offset; i < ranked.size(); i++) {
+                ids.add((long) ranked.get(i).filmId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int score(int filmId, List<TermMatch> matches) {
+        int score = 0;
+        for (TermMatch match : matches) {
+            if (match.nameExact().contains(filmId)) {
+                score += NAME_EXACT;
+            } else if (match.namePrefix().contains(filmId)) {
+                score += NAME_PREFIX;
+            } else if (match.descriptionExact().contains(filmId)) {
+                score += DESCRIPTION_EXACT;
+            } else {
+                score += DESCRIPTION_PREFIX;
+            }
+        }
+        return score;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(ch)) {
+                token.append(fold(ch));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static char fold(char ch) {
+        char lower = Character.toLowerCase(ch);
+        if (lower < 0x80 || lower == 'й') {
+            return lower;
+        }
+        // ё → е, é → e и т.п.: оставляем базовую букву без диакритики
+        return Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD).charAt(0);
+    }
+
+    private record TermMatch(RoaringBitmap nameExact, RoaringBitmap namePrefix,
+                             RoaringBitmap descriptionExact, RoaringBitmap descriptionPrefix) {
+    }
+
+    private record Hit(int filmId, int score) {
+    }
+
+    /**
+     * Словарь термов в TreeMap, чтобы префиксный поиск был диапазоном ключей. Не потокобезопасно.
+     */
+    private static final class Postings {
+        private final NavigableMap<String, RoaringBitmap> nameTerms = new TreeMap<>();
+        private final NavigableMap<String, RoaringBitmap> descriptionTerms = new TreeMap<>();
+        private final Map<Integer, Terms> termsByFilm = new HashMap<>();
+
+        void put(Film film) {
+            int filmId = Math.toIntExact(film.getId());
+            Terms previous = termsByFilm.remove(filmId);
+            if (previous != null) {
+                unlink(nameTerms, previous.name(), filmId);
+                unlink(descriptionTerms, previous.description(), filmId);
+            }
+            Terms terms = new Terms(new HashSet<>(tokenize(film.getName())),
+                    new HashSet<>(tokenize(film.getDescription())));
+            link(nameTerms, terms.name(), filmId);
+            link(descriptionTerms, terms.description(), filmId);
+            termsByFilm.put(filmId, terms);
+        }
+
+        TermMatch match(String term) {
+            return new TermMatch(exact(nameTerms, term), prefix(nameTerms, term),
+                    exact(descriptionTerms, term), prefix(descriptionTerms, term));
+        }
+
+        private static RoaringBitmap exact(NavigableMap<String, RoaringBitmap> terms, String term) {
+            return terms.getOrDefault(term, BitmapTable.EMPTY);
+        }
+
+        private static RoaringBitmap prefix(NavigableMap<String, RoaringBitmap> terms, String prefix) {
+            Collection<RoaringBitmap> matching = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+            return RoaringBitmap.or(matching.iterator());
+        }
+
+        private static void link(Map<String, RoaringBitmap> terms, Set<String> tokens, int filmId) {
+            for (String token : tokens) {
+                terms.computeIfAbsent(token, t -> new RoaringBitmap()).add(filmId);
+            }
+        }
+
+        private static void unlink(Map<String, RoaringBitmap> terms, Set<String> tokens, int filmId) {
+            for (String token : tokens) {
+                RoaringBitmap films = terms.get(token);
+                if (films != null) {
+                    films.remove(filmId);
+                    if (films.isEmpty()) {
+                        terms.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    private record Terms(Set<String> name, Set<String> description) {
+    }
+}
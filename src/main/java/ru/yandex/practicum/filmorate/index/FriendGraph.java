@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Component
+public class FriendGraph {
+
+    private static final Comparator<Suggestion> SUGGESTION_ORDER = Comparator.comparingInt(Suggestion::mutualFriends)
+            .reversed()
+            .thenComparingInt(Suggestion::userId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+    private BitmapTable friendsByUser = new BitmapTable();
+    private volatile boolean loaded;
+    private List<Change> changesDuringReload;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Граф строится без блокировки, поэтому изменения, пришедшие во время чтения, могли в него не попасть.
+     * Они копятся в журнале и повторяются на новом графе перед подменой; повтор безопасен,
+     * так как добавление и удаление ребра идемпотентны.
+     */
+    public void reload(Consumer<UserStorage.FriendshipConsumer> source) {
+        synchronized (reloadLock) {
+            setChangesDuringReload(new ArrayList<>());
+            BitmapTable rebuilt = new BitmapTable();
+            try {
+                source.accept(rebuilt::add);
+            } catch (RuntimeException exception) {
+                setChangesDuringReload(null);
+                throw exception;
+            }
+            rebuilt.optimize();
+            lock.writeLock().lock();
+            try {
+                for (Change change : changesDuringReload) {
+                    change.applyTo(rebuilt);
+                }
+                changesDuringReload = null;
+                friendsByUser = rebuilt;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void add(long userId, long friendId) {
+        apply(new Change(userId, friendId, true));
+    }
+
+    public void remove(long userId, long friendId) {
+        apply(new Change(userId, friendId, false));
+    }
+
+    public List<Long> commonFriends(long userId, long otherId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap common = RoaringBitmap.and(friends(userId), friends(otherId));
+            List<Long> ids = new ArrayList<>(common.getCardinality());
+            common.forEach((int id) -> ids.add((long) id));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countCommonFriends(long userId, long otherId) {
+        lock.readLock().lock();
+        try {
+            return RoaringBitmap.andCardinality(friends(userId), friends(otherId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей.
+     * С каждого шага обхода берётся не больше maxFanOut соседей, поэтому стоимость запроса
+     * ограничена maxFanOut² даже для пользователей с огромным числом друзей.
+     */
+    public List<Long> suggest(long userId, int limit, int maxFanOut) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap friends = friends(userId);
+            Map<Integer, int[]> mutualFriends = new HashMap<>();
+            int visitedFriends = 0;
+            for (int friendId : friends) {
+                if (visitedFriends++ == maxFanOut) {
+                    break;
+                }
+                int visitedCandidates = 0;
+                for (int candidateId : friends(friendId)) {
+                    if (visitedCandidates++ == maxFanOut) {
+                        break;
+                    }
+                    if (candidateId != userId && !friends.contains(candidateId)) {
+                        mutualFriends.computeIfAbsent(candidateId, id -> new int[1])[0]++;
+                    }
+                }
+            }
+
+            PriorityQueue<Suggestion> top = new PriorityQueue<>(SUGGESTION_ORDER.reversed());
+            mutualFriends.forEach((candidateId, count) -> {
+                top.add(new Suggestion(candidateId, count[0]));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            });
+            List<Suggestion> ranked = new ArrayList<>(top);
+            ranked.sort(SUGGESTION_ORDER);
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Suggestion suggestion : ranked) {
+                ids.add((long) suggestion.userId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap friends(long userId) {
+        return friendsByUser.get(userId);
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            change.applyTo(friendsByUser);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setChangesDuringReload(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Change(long userId, long friendId, boolean added) {
+
+        void applyTo(BitmapTable table) {
+            if (added) {
+                table.add(userId, friendId);
+            } else {
+                table.remove(userId, friendId);
+            }
+        }
+    }
+
+    private record Suggestion(int userId, int mutualFriends) {
+    }
+}
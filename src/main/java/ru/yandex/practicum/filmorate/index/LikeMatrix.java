@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@Component
+public class LikeMatrix {
+
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final Comparator<Neighbour> NEIGHBOUR_ORDER = Comparator.comparingDouble(Neighbour::similarity)
+            .reversed()
+            .thenComparingInt(Neighbour::userId);
+    private static final Comparator<Candidate> CANDIDATE_ORDER = Comparator.comparingDouble(Candidate::score)
+            .reversed()
+            .thenComparingInt(Candidate::filmId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+    private BitmapTable filmsByUser = new BitmapTable();
+    private BitmapTable usersByFilm = new BitmapTable();
+    private volatile boolean loaded;
+    private List<Change> changesDuringReload;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Матрица строится без блокировки; лайки, поставленные или снятые во время чтения, копятся в журнале
+     * и повторяются на новой матрице перед подменой, как в {@link FriendGraph#reload}.
+     */
+    public void reload(Consumer<FilmStorage.LikeConsumer> source) {
+        synchronized (reloadLock) {
+            setChangesDuringReload(new ArrayList<>());
+            BitmapTable films = new BitmapTable();
+            BitmapTable users = new BitmapTable();
+            try {
+                source.accept((filmId, userId) -> {
+                    films.add(userId, filmId);
+                    users.add(filmId, userId);
+                });
+            } catch (RuntimeException exception) {
+                setChangesDuringReload(null);
+                throw exception;
+            }
+            films.optimize();
+            users.optimize();
+            lock.writeLock().lock();
+            try {
+                for (Change change : changesDuringReload) {
+                    change.applyTo(films, users);
+                }
+                changesDuringReload = null;
+                filmsByUser = films;
+                usersByFilm = users;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void add(long filmId, long userId) {
+        apply(new Change(filmId, userId, true));
+    }
+
+    public void remove(long filmId, long userId) {
+        apply(new Change(filmId, userId, false));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        apply(new Change(event.filmId(), event.userId(), event.liked()));
+    }
+
+    /**
+     * Фильмы, которые лайкали пользователи с самыми похожими (по Жаккару) наборами лайков.
+     * Кандидаты в соседи набираются начиная с самых редких фильмов пользователя, пока их
+     * не станет maxCandidates: совпадение на редком фильме говорит о вкусе больше, чем на хите.
+     */
+    public List<Long> recommend(long userId, int limit, int neighbours, int maxCandidates) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap liked = filmsByUser.get(userId);
+            if (liked.isEmpty()) {
+                return new ArrayList<>();
+            }
+            int[] candidates = candidates(userId, liked, maxCandidates);
+            List<Neighbour> nearest = nearest(liked, candidates, neighbours);
+
+            Map<Integer, double[]> scores = new HashMap<>();
+            for (Neighbour neighbour : nearest) {
+                for (int filmId : filmsByUser.get(neighbour.userId())) {
+                    if (!liked.contains(filmId)) {
+                        scores.computeIfAbsent(filmId, id -> new double[1])[0] += neighbour.similarity();
+                    }
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] candidates(long userId, RoaringBitmap liked, int maxCandidates) {
+        int[] films = liked.toArray();
+        Integer[] byPopularity = new Integer[films.length];
+        for (int i = 0; i < films.length; i++) {
+            byPopularity[i] = films[i];
+        }
+        Arrays.sort(byPopularity, Comparator.comparingInt((Integer filmId) -> usersByFilm.get(filmId).getCardinality())
+                .thenComparingInt(filmId -> filmId));
+
+        // с каждого фильма берём лайкнувших поштучно, чтобы хит с миллионом лайков не сливался целиком
+        int self = Math.toIntExact(userId);
+        RoaringBitmap candidates = new RoaringBitmap();
+        int count = 0;
+        for (int filmId : byPopularity) {
+            IntIterator likers = usersByFilm.get(filmId).getIntIterator();
+            while (count < maxCandidates && likers.hasNext()) {
+                int candidateId = likers.next();
+                if (candidateId != self && candidates.checkedAdd(candidateId)) {
+                    count++;
+                }
+            }
+            if (count == maxCandidates) {
+                break;
+            }
+        }
+        return candidates.toArray();
+    }
+
+    private List<Neighbour> nearest(RoaringBitmap liked, int[] candidates, int neighbours) {
+        IntStream ids = IntStream.of(candidates);
+        if (candidates.length >= PARALLEL_THRESHOLD) {
+            // вызывающий поток держит read lock, поэтому писатели ждут и рабочие потоки видят согласованные битмапы
+            ids = ids.parallel();
+        }
+        Stream<Neighbour> similar = ids.mapToObj(candidateId -> similarity(liked, candidateId))
+                .filter(neighbour -> neighbour.similarity() > 0);
+        return similar.sorted(NEIGHBOUR_ORDER).limit(neighbours).toList();
+    }
+
+    private Neighbour similarity(RoaringBitmap liked, int candidateId) {
+        RoaringBitmap other = filmsByUser.get(candidateId);
+        int common = RoaringBitmap.andCardinality(liked, other);
+        int union = liked.getCardinality() + other.getCardinality() - common;
+        return new Neighbour(candidateId, union == 0 ? 0 : (double) common / union);
+    }
+
+    private static List<Long> top(Map<Integer, double[]> scores, int limit) {
+        PriorityQueue<Candidate> top = new PriorityQueue<>(CANDIDATE_ORDER.reversed());
+        scores.forEach((filmId, score) -> {
+            top.add(new Candidate(filmId, score[0]));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<Candidate> ranked = new ArrayList<>(top);
+        ranked.sort(CANDIDATE_ORDER);
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Candidate candidate : ranked) {
+            ids.add((long) candidate.filmId());
+        }
+        return ids;
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            change.applyTo(filmsByUser, usersByFilm);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setChangesDuringReload(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Change(long filmId, long userId, boolean liked) {
+
+        void applyTo(BitmapTable films, BitmapTable users) {
+            if (liked) {
+                films.add(userId, filmId);
+                users.add(filmId, userId);
+            } else {
+                films.remove(userId, filmId);
+                users.remove(filmId, userId);
+            }
+        }
+    }
+
+    private record Neighbour(int userId, double similarity) {
+    }
+
+    private record Candidate(int filmId, double score) {
+    }
+}
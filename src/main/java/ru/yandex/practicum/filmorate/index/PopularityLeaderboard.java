@@ -0,0 +1,282 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChangedEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Component
+public class PopularityLeaderboard {
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final Object reloadLock = new Object();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private volatile Map<Long, Category> categories = new ConcurrentHashMap<>();
+    private volatile NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING_ORDER);
+    private volatile Map<Long, NavigableSet<Entry>> rankingsByGenre = new ConcurrentHashMap<>();
+    private volatile Map<Integer, NavigableSet<Entry>> rankingsByYear = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private volatile boolean categorized;
+    private Set<Long> touchedDuringReload;
+    private Map<Long, Category> categorizedDuringReload;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isCategorized() {
+        return categorized;
+    }
+
+    public void reload(Map<Long, Long> likeCounts) {
+        reload(() -> likeCounts);
+    }
+
+    /**
+     * Снимок счётчиков читается без блокировки, поэтому лайк, пришедший во время чтения, мог в него
+     * не попасть. Фильмы, которые менялись, пока снимок читался, сохраняют живое значение и будут
+     * сверены при следующей перезагрузке; остальные берут значение из снимка.
+     */
+    public void reload(Supplier<Map<Long, Long>> source) {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                touchedDuringReload = new HashSet<>();
+            }
+            Map<Long, Long> likeCounts;
+            try {
+                likeCounts = source.get();
+            } catch (RuntimeException exception) {
+                synchronized (this) {
+                    touchedDuringReload = null;
+                }
+                throw exception;
+            }
+            synchronized (this) {
+                Map<Long, Entry> rebuiltEntries = new HashMap<>();
+                NavigableSet<Entry> rebuilt = new ConcurrentSkipListSet<>(RANKING_ORDER);
+                likeCounts.forEach((filmId, likes) -> rebuiltEntries.put(filmId, new Entry(filmId, likes)));
+                for (Long filmId : touchedDuringReload) {
+                    Entry live = entries.get(filmId);
+                    if (live != null) {
+                        rebuiltEntries.put(filmId, live);
+                    }
+                }
+                touchedDuringReload = null;
+                rebuilt.addAll(rebuiltEntries.values());
+                entries.clear();
+                entries.putAll(rebuiltEntries);
+                ranking = rebuilt;
+                rebuildCategoryRankings();
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Перечитывает жанры и год выпуска всех фильмов и пересобирает рейтинги по ним. Каталог читается
+     * без блокировки, и до подмены продолжают работать прежние категории; фильмы, изменённые
+     * во время чтения, берутся из журнала, а не из устаревшего снимка.
+     */
+    public void reloadCategories(Consumer<Consumer<Film>> source) {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                categorizedDuringReload = new HashMap<>();
+            }
+            Map<Long, Category> rebuilt = new ConcurrentHashMap<>();
+            try {
+                source.accept(film -> rebuilt.put(film.getId(), Category.of(film)));
+            } catch (RuntimeException exception) {
+                synchronized (this) {
+                    categorizedDuringReload = null;
+                }
+                throw exception;
+            }
+            synchronized (this) {
+                rebuilt.putAll(categorizedDuringReload);
+                categorizedDuringReload = null;
+                categories = rebuilt;
+                rebuildCategoryRankings();
+                categorized = true;
+            }
+        }
+    }
+
+    public synchronized void register(long filmId) {
+        touch(filmId);
+        if (!entries.containsKey(filmId)) {
+            Entry entry = new Entry(filmId, 0);
+            entries.put(filmId, entry);
+            ranking.add(entry);
+            categoryRankings(categories.get(filmId)).forEach(rankings -> rankings.add(entry));
+        }
+    }
+
+    public synchronized void categorize(Film film) {
+        Category category = Category.of(film);
+        Category previous = categories.put(film.getId(), category);
+        if (categorizedDuringReload != null) {
+            categorizedDuringReload.put(film.getId(), category);
+        }
+        Entry entry = entries.get(film.getId());
+        if (entry != null) {
+            categoryRankings(previous).forEach(rankings -> rankings.remove(entry));
+            categoryRankings(category).forEach(rankings -> rankings.add(entry));
+        }
+    }
+
+    public void increment(long filmId) {
+        adjust(filmId, 1);
+    }
+
+    public void decrement(long filmId) {
+        adjust(filmId, -1);
+    }
+
+    // рейтинг обновляется раньше остальных подписчиков: кеш популярных сверяется с его счётчиками
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        for (Film film : event.films()) {
+            if (event.created()) {
+                register(film.getId());
+            }
+            categorize(film);
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        adjust(event.filmId(), event.liked() ? 1 : -1);
+    }
+
+    public long getLikes(long filmId) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(filmId);
+        }
+        return entry == null ? 0 : entry.likes();
+    }
+
+    public List<Long> top(int count) {
+        return top(ranking, count, null);
+    }
+
+    /**
+     * Самые популярные фильмы жанра и/или года. Если заданы оба, обходится рейтинг жанра с отсевом по году.
+     */
+    public List<Long> top(int count, Long genreId, Integer year) {
+        if (genreId != null) {
+            return top(rankingsByGenre.getOrDefault(genreId, Collections.emptyNavigableSet()), count, year);
+        }
+        if (year != null) {
+            return top(rankingsByYear.getOrDefault(year, Collections.emptyNavigableSet()), count, null);
+        }
+        return top(count);
+    }
+
+    public boolean matches(long filmId, Long genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return true;
+        }
+        Category category = categories.get(filmId);
+        return category != null && (genreId == null || category.genres().contains(genreId))
+                && (year == null || year.equals(category.year()));
+    }
+
+    private List<Long> top(NavigableSet<Entry> ranking, int count, Integer year) {
+        List<Long> result = new ArrayList<>(Math.min(count, 1024));
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (result.size() >= count) {
+                break;
+            }
+            if (year != null && !matches(entry.filmId(), null, year)) {
+                continue;
+            }
+            if (seen.add(entry.filmId())) {
+                result.add(entry.filmId());
+            }
+        }
+        return result;
+    }
+
+    private synchronized void adjust(long filmId, long delta) {
+        touch(filmId);
+        Entry current = entries.get(filmId);
+        long likes = current == null ? 0 : current.likes();
+        Entry updated = new Entry(filmId, Math.max(0, likes + delta));
+        entries.put(filmId, updated);
+        // сначала добавляем новую позицию, потом удаляем старую, чтобы читатели не теряли фильм
+        List<NavigableSet<Entry>> rankings = new ArrayList<>(categoryRankings(categories.get(filmId)));
+        rankings.add(ranking);
+        rankings.forEach(set -> set.add(updated));
+        if (current != null && !current.equals(updated)) {
+            rankings.forEach(set -> set.remove(current));
+        }
+    }
+
+    private void touch(long filmId) {
+        if (touchedDuringReload != null) {
+            touchedDuringReload.add(filmId);
+        }
+    }
+
+    private List<NavigableSet<Entry>> categoryRankings(Category category) {
+        if (category == null) {
+            return List.of();
+        }
+        List<NavigableSet<Entry>> rankings = new ArrayList<>(category.genres().size() + 1);
+        for (Long genreId : category.genres()) {
+            rankings.add(rankingsByGenre.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(RANKING_ORDER)));
+        }
+        if (category.year() != null) {
+            rankings.add(rankingsByYear.computeIfAbsent(category.year(), y -> new ConcurrentSkipListSet<>(RANKING_ORDER)));
+        }
+        return rankings;
+    }
+
+    private void rebuildCategoryRankings() {
+        Map<Long, NavigableSet<Entry>> byGenre = new ConcurrentHashMap<>();
+        Map<Integer, NavigableSet<Entry>> byYear = new ConcurrentHashMap<>();
+        categories.forEach((filmId, category) -> {
+            Entry entry = entries.get(filmId);
+            if (entry == null) {
+                return;
+            }
+            for (Long genreId : category.genres()) {
+                byGenre.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(RANKING_ORDER)).add(entry);
+            }
+            if (category.year() != null) {
+                byYear.computeIfAbsent(category.year(), y -> new ConcurrentSkipListSet<>(RANKING_ORDER)).add(entry);
+            }
+        });
+        rankingsByGenre = byGenre;
+        rankingsByYear = byYear;
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+
+    private record Category(Set<Long> genres, Integer year) {
+        static Category of(Film film) {
+            Set<Long> genres = new HashSet<>();
+            for (Genre genre : film.getGenres()) {
+                genres.add(genre.getId());
+            }
+            return new Category(genres, film.getReleaseDate() == null ? null : film.getReleaseDate().getYear());
+        }
+    }
+}
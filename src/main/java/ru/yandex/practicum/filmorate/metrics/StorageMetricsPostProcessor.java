@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class StorageMetricsPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public static final String METRIC_NAME = "filmorate.storage";
+
+    private static final List<Class<?>> STORAGE_INTERFACES = List.of(
+            FilmStorage.class, UserStorage.class, GenreStorage.class, MpaRatingStorage.class);
+
+    public StorageMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.advisor = new DefaultPointcutAdvisor(new StorageMethodPointcut(), new TimingInterceptor(meterRegistry));
+        setProxyTargetClass(true);
+        setBeforeExistingAdvisors(true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Advised advised && advised.indexOf(this.advisor) >= 0) {
+            return bean;
+        }
+        return super.postProcessAfterInitialization(bean, beanName);
+    }
+
+    private static class StorageMethodPointcut extends StaticMethodMatcherPointcut {
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            for (Class<?> storageInterface : STORAGE_INTERFACES) {
+                if (storageInterface.isAssignableFrom(targetClass)
+                        && ReflectionUtils.findMethod(storageInterface, method.getName(), method.getParameterTypes()) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private volatile Meter.MeterProvider<Timer> timers;
+
+        TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Meter.MeterProvider<Timer> provider = timers();
+            if (provider == null) {
+                return invocation.proceed();
+            }
+            String storage = ClassUtils.getUserClass(invocation.getThis().getClass()).getSimpleName();
+            String method = invocation.getMethod().getName();
+            String exception = "none";
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                provider.withTags(Tags.of("storage", storage, "method", method, "exception", exception))
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Meter.MeterProvider<Timer> timers() {
+            Meter.MeterProvider<Timer> provider = timers;
+            if (provider == null) {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry == null) {
+                    return null;
+                }
+                provider = Timer.builder(METRIC_NAME)
+                        .description("Время выполнения методов хранилищ")
+                        .publishPercentiles(0.5, 0.99, 0.999)
+                        .publishPercentileHistogram()
+                        .withRegistry(registry);
+                timers = provider;
+            }
+            return provider;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private int index;
+    private Long id;
+    private String error;
+
+    public static BulkItemResult created(int index, Long id) {
+        return new BulkItemResult(index, id, null);
+    }
+
+    public static BulkItemResult failed(int index, String error) {
+        return new BulkItemResult(index, null, error);
+    }
+}
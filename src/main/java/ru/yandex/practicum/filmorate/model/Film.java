@@ -17,6 +17,7 @@ public class Film {
     private Long id;
 
     @NotBlank(message = "Название фильма не может быть пустым")
+    @Size(max = 255, message = "Название фильма не может быть более 255 символов")
     private String name;
 
     @Size(max = 200, message = "Описание фильма не может быть более 200 символов")
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Фильмы созданы или изменены. Публикуется сервисом после записи в хранилище; подписчики — индексы,
+ * рейтинг популярности, кеш и версии для ETag — получают его после фиксации транзакции.
+ */
+public record FilmChangedEvent(List<Film> films, boolean created) {
+
+    public static FilmChangedEvent created(List<Film> films) {
+        return new FilmChangedEvent(List.copyOf(films), true);
+    }
+
+    public static FilmChangedEvent created(Film film) {
+        return new FilmChangedEvent(List.of(film), true);
+    }
+
+    public static FilmChangedEvent updated(Film film) {
+        return new FilmChangedEvent(List.of(film), false);
+    }
+}
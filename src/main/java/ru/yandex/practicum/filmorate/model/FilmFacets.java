@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmFacets {
+    private int total;
+    private Map<Long, Integer> genres = new TreeMap<>();
+    private Map<Long, Integer> mpa = new TreeMap<>();
+    private Map<Integer, Integer> years = new TreeMap<>();
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmFilter {
+    private Set<Long> genres = new HashSet<>();
+    private Set<Long> mpa = new HashSet<>();
+    private Integer yearFrom;
+    private Integer yearTo;
+    private Integer minDuration;
+
+    public boolean isEmpty() {
+        return (genres == null || genres.isEmpty()) && (mpa == null || mpa.isEmpty())
+                && yearFrom == null && yearTo == null && minDuration == null;
+    }
+}
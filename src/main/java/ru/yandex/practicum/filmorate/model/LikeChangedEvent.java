@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Пользователь поставил (liked) или снял лайк. Публикуется, только если хранилище лайк действительно изменило.
+ */
+public record LikeChangedEvent(long filmId, long userId, boolean liked) {
+}
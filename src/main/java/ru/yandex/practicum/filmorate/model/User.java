@@ -17,12 +17,15 @@ public class User {
 
     @Email(message = "Email must be valid")
     @NotEmpty(message = "Email must not be empty")
+    @Size(max = 255, message = "Email must not be longer than 255 characters")
     private String email;
 
     @Pattern(regexp = "^\\S+$", message = "Login must not contain spaces")
     @NotBlank(message = "Login must not be empty")
+    @Size(max = 50, message = "Login must not be longer than 50 characters")
     private String login;
 
+    @Size(max = 50, message = "Name must not be longer than 50 characters")
     private String name;
 
     @PastOrPresent(message = "Birthday must not be in the future")
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.LikeChangedEvent;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчики версий сущностей для ETag. Версию повышают после записи в хранилище, а читают до загрузки
+ * сущности: тогда отданный ETag никогда не новее тела ответа. Эпоха запуска в ETag отсекает
+ * теги, выданные до перезапуска, когда счётчики начинались заново.
+ */
+@Component
+public class EntityVersions {
+
+    public enum Kind {
+        FILM, USER, GENRE, MPA
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<Kind, Map<Long, AtomicLong>> versions = new EnumMap<>(Kind.class);
+    private final Map<Kind, AtomicLong> kindVersions = new EnumMap<>(Kind.class);
+    private final Map<Kind, AtomicLong> generations = new EnumMap<>(Kind.class);
+
+    public EntityVersions() {
+        for (Kind kind : Kind.values()) {
+            versions.put(kind, new ConcurrentHashMap<>());
+            kindVersions.put(kind, new AtomicLong());
+            generations.put(kind, new AtomicLong());
+        }
+    }
+
+    public void bump(Kind kind, long id) {
+        versions.get(kind).computeIfAbsent(id, key -> new AtomicLong()).incrementAndGet();
+        kindVersions.get(kind).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        for (Film film : event.films()) {
+            bump(Kind.FILM, film.getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        bump(Kind.FILM, event.filmId());
+    }
+
+    /**
+     * Меняет теги всех сущностей вида разом: справочник перечитан целиком, и любая запись могла измениться.
+     */
+    public void bumpAll(Kind kind) {
+        generations.get(kind).incrementAndGet();
+        kindVersions.get(kind).incrementAndGet();
+    }
+
+    public long version(Kind kind, long id) {
+        AtomicLong version = versions.get(kind).get(id);
+        return version == null ? 0 : version.get();
+    }
+
+    public String etag(Kind kind, long id) {
+        return "\"" + kind.name().toLowerCase() + "-" + id + "-" + epoch + "-" + generations.get(kind).get() + "."
+                + version(kind, id) + "\"";
+    }
+
+    public String etag(Kind kind) {
+        return "\"" + kind.name().toLowerCase() + "-" + epoch + "-" + kindVersions.get(kind).get() + "\"";
+    }
+}
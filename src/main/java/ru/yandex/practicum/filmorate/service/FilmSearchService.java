@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.List;
+
+@Slf4j
+@Service
+public class FilmSearchService {
+    private final FilmStorage filmStorage;
+    private final FilmSearchIndex searchIndex;
+    private final FilmFacetIndex facetIndex;
+    private final int exportFetchSize;
+
+    public FilmSearchService(
+            @Qualifier("filmStorage") FilmStorage filmStorage,
+            FilmSearchIndex searchIndex,
+            FilmFacetIndex facetIndex,
+            @Value("${filmorate.export.fetch-size:500}") int exportFetchSize) {
+        this.filmStorage = filmStorage;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    public List<Film> search(String query, int offset, int limit) {
+        if (offset < 0) {
+            throw new ValidationException("offset must not be negative");
+        }
+        if (!searchIndex.isLoaded()) {
+            // индекс строит только загрузка при старте: полный проход на запросе устроил бы лавину
+            throw new ServiceUnavailableException("Film search index is still loading");
+        }
+        return filmStorage.findByIds(searchIndex.search(query, offset, limit));
+    }
+
+    public List<Film> filter(FilmFilter filter, Long afterId, int limit) {
+        validateFilter(filter);
+        ensureFacetIndexLoaded();
+        return filmStorage.findByIds(facetIndex.filter(filter, afterId, limit));
+    }
+
+    public FilmFacets getFacets(FilmFilter filter) {
+        validateFilter(filter);
+        ensureFacetIndexLoaded();
+        return facetIndex.count(filter);
+    }
+
+    private void ensureFacetIndexLoaded() {
+        if (!facetIndex.isLoaded()) {
+            throw new ServiceUnavailableException("Film facet index is still loading");
+        }
+    }
+
+    private void validateFilter(FilmFilter filter) {
+        if (filter.getYearFrom() != null && filter.getYearTo() != null && filter.getYearFrom() > filter.getYearTo()) {
+            throw new ValidationException("yearFrom must not be greater than yearTo");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadSearchIndex() {
+        searchIndex.reload(action -> filmStorage.exportAll(exportFetchSize, action));
+        log.debug("Film search index reloaded");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadFacetIndex() {
+        facetIndex.reload(action -> filmStorage.exportAll(exportFetchSize, action));
+        log.debug("Film facet index reloaded");
+    }
+}
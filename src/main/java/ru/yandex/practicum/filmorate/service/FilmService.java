@@ -1,42 +1,151 @@
 package ru.yandex.practicum.filmorate.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.cache.PopularFilmsCache;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChangedEvent;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class FilmService {
     private final FilmStorage filmStorage;
     private final MpaRatingService mpaRatingService;
     private final GenreService genreService;
     private final UserService userService;
+    private final PopularityLeaderboard leaderboard;
+    private final EntityVersions versions;
+    private final PopularFilmsCache popularFilmsCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int exportFetchSize;
+    private final int bulkChunkSize;
 
     public FilmService(
-            @Qualifier("filmDbStorage") FilmStorage filmStorage,
+            @Qualifier("filmStorage") FilmStorage filmStorage,
             MpaRatingService mpaRatingService,
             GenreService genreService,
-            @Lazy UserService userService) {
+            UserService userService,
+            PopularityLeaderboard leaderboard,
+            EntityVersions versions,
+            PopularFilmsCache popularFilmsCache,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${filmorate.export.fetch-size:500}") int exportFetchSize,
+            @Value("${filmorate.bulk.chunk-size:1000}") int bulkChunkSize) {
         this.filmStorage = filmStorage;
         this.mpaRatingService = mpaRatingService;
         this.genreService = genreService;
         this.userService = userService;
+        this.leaderboard = leaderboard;
+        this.versions = versions;
+        this.popularFilmsCache = popularFilmsCache;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.exportFetchSize = exportFetchSize;
+        this.bulkChunkSize = bulkChunkSize;
     }
 
     public Film add(Film film) {
         validateFilm(film);
-        return filmStorage.add(film);
+        Film created = filmStorage.add(film);
+        eventPublisher.publishEvent(FilmChangedEvent.created(created));
+        return created;
+    }
+
+    @Transactional
+    public List<BulkItemResult> addAll(Iterator<Film> films) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<Film> chunk = new ArrayList<>(bulkChunkSize);
+        List<BulkItemResult> pending = new ArrayList<>(bulkChunkSize);
+        int index = 0;
+        while (films.hasNext()) {
+            Film film = films.next();
+            String error = validateForImport(film);
+            BulkItemResult result = error == null ? BulkItemResult.created(index, null) : BulkItemResult.failed(index, error);
+            results.add(result);
+            index++;
+            if (error != null) {
+                continue;
+            }
+            chunk.add(film);
+            pending.add(result);
+            if (chunk.size() == bulkChunkSize) {
+                flushImportChunk(chunk, pending);
+            }
+        }
+        flushImportChunk(chunk, pending);
+        log.info("Imported {} of {} films", results.stream().filter(r -> r.getId() != null).count(), results.size());
+        return results;
+    }
+
+    private String validateForImport(Film film) {
+        if (film == null) {
+            return "Film must not be null";
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            validateFilm(film);
+        } catch (EntityNotFoundException exception) {
+            return exception.getMessage();
+        }
+        return null;
+    }
+
+    private void flushImportChunk(List<Film> chunk, List<BulkItemResult> pending) {
+        filmStorage.addAll(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            pending.get(i).setId(chunk.get(i).getId());
+        }
+        // импорт идёт одной транзакцией: подписчики получат событие только после её фиксации
+        eventPublisher.publishEvent(FilmChangedEvent.created(chunk));
+        chunk.clear();
+        pending.clear();
     }
 
     public Film update(Film film) {
         validateFilm(film);
-        findById(film.getId());
-        return filmStorage.update(film);
+        ensureExists(film.getId());
+        Film updated = filmStorage.update(film);
+        eventPublisher.publishEvent(FilmChangedEvent.updated(updated));
+        return updated;
     }
 
     private void validateFilm(Film film) {
@@ -55,28 +164,136 @@ public class FilmService {
         return filmStorage.getFilmsByGenre(genreId);
     }
 
+    public List<Film> getFilmsByGenrePage(Long genreId, Long afterId, int limit) {
+        return filmStorage.getFilmsByGenrePage(genreId, afterId, limit);
+    }
+
     public List<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    public List<Film> findPage(Long afterId, int limit) {
+        return filmStorage.findPage(afterId, limit);
+    }
+
+    public void exportAll(Consumer<Film> action) {
+        filmStorage.exportAll(exportFetchSize, action);
+    }
+
     public Film findById(Long id) {
         return filmStorage.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Film with id " + id + " not found"));
     }
 
+    public String getETag(Long id) {
+        return versions.etag(EntityVersions.Kind.FILM, id);
+    }
+
+    public void ensureExists(Long id) {
+        if (id == null || !filmStorage.existsById(id)) {
+            throw new EntityNotFoundException("Film with id " + id + " not found");
+        }
+    }
+
     public void addLike(Long filmId, Long userId) {
-        findById(filmId);
-        userService.findById(userId);
-        filmStorage.addLike(filmId, userId);
+        ensureExists(filmId);
+        userService.ensureExists(userId);
+        if (filmStorage.addLike(filmId, userId)) {
+            eventPublisher.publishEvent(new LikeChangedEvent(filmId, userId, true));
+        }
     }
 
     public void removeLike(Long filmId, Long userId) {
-        findById(filmId);
-        userService.findById(userId);
-        filmStorage.removeLike(filmId, userId);
+        ensureExists(filmId);
+        userService.ensureExists(userId);
+        if (filmStorage.removeLike(filmId, userId)) {
+            eventPublisher.publishEvent(new LikeChangedEvent(filmId, userId, false));
+        }
     }
 
     public List<Film> getPopularFilms(int count) {
-        return filmStorage.getPopularFilms(count);
+        validateCount(count);
+        if (!leaderboard.isLoaded()) {
+            return filmStorage.getPopularFilms(count);
+        }
+        return filmStorage.findByIds(leaderboard.top(count));
+    }
+
+    // кеш популярных подписан после рейтинга (см. PopularityLeaderboard) и сверяется с уже обновлёнными счётчиками
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        popularFilmsCache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        long filmId = event.filmId();
+        popularFilmsCache.onLikeChanged(filmId, leaderboard.getLikes(filmId),
+                key -> leaderboard.matches(filmId, key.genreId(), key.year()));
+    }
+
+    public byte[] getPopularFilmsJson(int count, Long genreId, Integer year) {
+        validateCount(count);
+        if (!leaderboard.isLoaded()) {
+            return toJson(getPopularFilms(count, genreId, year));
+        }
+        return popularFilmsCache.get(new PopularFilmsCache.Key(count, genreId, year), key -> {
+            List<Film> films = getPopularFilms(key.count(), key.genreId(), key.year());
+            Set<Long> filmIds = new HashSet<>();
+            films.forEach(film -> filmIds.add(film.getId()));
+            long lastFilmId = films.isEmpty() ? 0 : films.get(films.size() - 1).getId();
+            return new PopularFilmsCache.Window(toJson(films), filmIds, lastFilmId,
+                    leaderboard.getLikes(lastFilmId), films.size() >= key.count());
+        });
+    }
+
+    private void validateCount(int count) {
+        if (count <= 0) {
+            throw new ValidationException("count must be positive");
+        }
+    }
+
+    private byte[] toJson(List<Film> films) {
+        try {
+            return objectMapper.writeValueAsBytes(films);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Failed to serialize popular films", exception);
+        }
+    }
+
+    public List<Film> getPopularFilms(int count, Long genreId, Integer year) {
+        validateCount(count);
+        if (genreId == null && year == null) {
+            return getPopularFilms(count);
+        }
+        if (!leaderboard.isCategorized() || !leaderboard.isLoaded()) {
+            // рейтинги по жанрам и годам строит загрузка при старте, а не каждый из ждущих запросов
+            throw new ServiceUnavailableException("Popularity leaderboard is still loading");
+        }
+        return filmStorage.findByIds(leaderboard.top(count, genreId, year));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileLikeCounts() {
+        int repaired = filmStorage.reconcileLikeCounts();
+        if (repaired > 0) {
+            log.warn("Repaired like counters for {} films", repaired);
+        }
+        reloadLeaderboard();
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.leaderboard.reconcile-interval-ms:300000}",
+            fixedDelayString = "${filmorate.leaderboard.reconcile-interval-ms:300000}")
+    public void reloadLeaderboard() {
+        leaderboard.reload(filmStorage::getLikeCounts);
+        popularFilmsCache.invalidateAll();
+        log.debug("Popularity leaderboard reloaded");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadLeaderboardCategories() {
+        leaderboard.reloadCategories(action -> filmStorage.exportAll(exportFetchSize, action));
+        popularFilmsCache.invalidateAll();
+        log.debug("Popularity leaderboard categories reloaded");
     }
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@ import java.util.List;
 public class GenreService {
 
     private final GenreStorage genreStorage;
+    private final EntityVersions versions;
 
     public List<Genre> findAll() {
         return genreStorage.findAll();
@@ -22,4 +23,20 @@ public class GenreService {
         return genreStorage.findById(Math.toIntExact(id))
                 .orElseThrow(() -> new EntityNotFoundException("Genre with id " + id + " not found"));
     }
+
+    /**
+     * Перечитывает справочник и сдвигает все его версии, чтобы клиенты не получили 304 на старые данные.
+     */
+    public void reload() {
+        genreStorage.reload();
+        versions.bumpAll(EntityVersions.Kind.GENRE);
+    }
+
+    public String getETag() {
+        return versions.etag(EntityVersions.Kind.GENRE);
+    }
+
+    public String getETag(Long id) {
+        return versions.etag(EntityVersions.Kind.GENRE, id);
+    }
 }
\ No newline at end of file
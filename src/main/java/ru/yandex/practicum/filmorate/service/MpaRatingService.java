@@ -13,6 +13,7 @@ import java.util.List;
 public class MpaRatingService {
 
     private final MpaRatingStorage mpaRatingStorage;
+    private final EntityVersions versions;
 
     public List<MpaRating> findAll() {
         return mpaRatingStorage.findAll();
@@ -22,4 +23,20 @@ public class MpaRatingService {
         return mpaRatingStorage.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("MPA rating with id " + id + " not found"));
     }
+
+    /**
+     * Перечитывает справочник и сдвигает все его версии, чтобы клиенты не получили 304 на старые данные.
+     */
+    public void reload() {
+        mpaRatingStorage.reload();
+        versions.bumpAll(EntityVersions.Kind.MPA);
+    }
+
+    public String getETag() {
+        return versions.etag(EntityVersions.Kind.MPA);
+    }
+
+    public String getETag(Long id) {
+        return versions.etag(EntityVersions.Kind.MPA, id);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class RecommendationService {
+    private final FilmStorage filmStorage;
+    private final LikeMatrix likeMatrix;
+    private final int recommendationNeighbours;
+    private final int recommendationCandidates;
+    private final AtomicReference<CompletableFuture<Void>> inFlightReload = new AtomicReference<>();
+
+    public RecommendationService(
+            @Qualifier("filmStorage") FilmStorage filmStorage,
+            LikeMatrix likeMatrix,
+            @Value("${filmorate.recommendations.neighbours:50}") int recommendationNeighbours,
+            @Value("${filmorate.recommendations.max-candidates:10000}") int recommendationCandidates) {
+        this.filmStorage = filmStorage;
+        this.likeMatrix = likeMatrix;
+        this.recommendationNeighbours = recommendationNeighbours;
+        this.recommendationCandidates = recommendationCandidates;
+    }
+
+    public List<Film> getRecommendations(long userId, int limit) {
+        if (!likeMatrix.isLoaded()) {
+            // до окончания стартовой загрузки запросы ждут её, а не запускают каждый свою
+            reloadLikeMatrix();
+        }
+        return filmStorage.findByIds(likeMatrix.recommend(userId, limit, recommendationNeighbours,
+                recommendationCandidates));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLikeMatrix() {
+        reloadLikeMatrix();
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.recommendations.reload-interval-ms:300000}",
+            fixedDelayString = "${filmorate.recommendations.reload-interval-ms:300000}")
+    public void reloadLikeMatrix() {
+        CompletableFuture<Void> reload = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlightReload.compareAndExchange(null, reload);
+        if (running != null) {
+            try {
+                running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            return;
+        }
+        try {
+            likeMatrix.reload(filmStorage::forEachLike);
+            reload.complete(null);
+            log.debug("Like matrix reloaded");
+        } catch (RuntimeException e) {
+            reload.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightReload.set(null);
+        }
+    }
+}
@@ -1,43 +1,155 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.BulkItemResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class UserService {
 
     private final UserStorage userStorage;
+    private final RecommendationService recommendationService;
+    private final FriendGraph friendGraph;
+    private final EntityVersions versions;
+    private final Validator validator;
+    private final int exportFetchSize;
+    private final int bulkChunkSize;
+    private final int suggestionFanOut;
 
     public UserService(
-            @Qualifier("userDbStorage") UserStorage userStorage,
-            @Lazy FilmService filmService) {
+            @Qualifier("userStorage") UserStorage userStorage,
+            RecommendationService recommendationService,
+            FriendGraph friendGraph,
+            EntityVersions versions,
+            Validator validator,
+            @Value("${filmorate.export.fetch-size:500}") int exportFetchSize,
+            @Value("${filmorate.bulk.chunk-size:1000}") int bulkChunkSize,
+            @Value("${filmorate.friend-graph.suggestion-fan-out:500}") int suggestionFanOut) {
         this.userStorage = userStorage;
+        this.recommendationService = recommendationService;
+        this.friendGraph = friendGraph;
+        this.versions = versions;
+        this.validator = validator;
+        this.exportFetchSize = exportFetchSize;
+        this.bulkChunkSize = bulkChunkSize;
+        this.suggestionFanOut = suggestionFanOut;
     }
 
     public List<User> findAll() {
         return userStorage.findAll();
     }
 
+    public List<User> findPage(Long afterId, int limit) {
+        return userStorage.findPage(afterId, limit);
+    }
+
+    public void exportAll(Consumer<User> action) {
+        userStorage.exportAll(exportFetchSize, action);
+    }
+
     public User findById(Long id) {
         return userStorage.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User with id " + id + " not found"));
     }
 
+    public String getETag(Long id) {
+        return versions.etag(EntityVersions.Kind.USER, id);
+    }
+
+    public void ensureExists(Long id) {
+        if (id == null || !userStorage.existsById(id)) {
+            throw new EntityNotFoundException("User with id " + id + " not found");
+        }
+    }
+
     public User add(User user) {
         validateUser(user);
-        return userStorage.add(user);
+        User created = userStorage.add(user);
+        versions.bump(EntityVersions.Kind.USER, created.getId());
+        return created;
+    }
+
+    @Transactional
+    public List<BulkItemResult> addAll(Iterator<User> users) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<User> chunk = new ArrayList<>(bulkChunkSize);
+        List<BulkItemResult> pending = new ArrayList<>(bulkChunkSize);
+        int index = 0;
+        while (users.hasNext()) {
+            User user = users.next();
+            String error = validateForImport(user);
+            BulkItemResult result = error == null ? BulkItemResult.created(index, null) : BulkItemResult.failed(index, error);
+            results.add(result);
+            index++;
+            if (error != null) {
+                continue;
+            }
+            chunk.add(user);
+            pending.add(result);
+            if (chunk.size() == bulkChunkSize) {
+                flushImportChunk(chunk, pending);
+            }
+        }
+        flushImportChunk(chunk, pending);
+        log.info("Imported {} of {} users", results.stream().filter(r -> r.getId() != null).count(), results.size());
+        return results;
+    }
+
+    private String validateForImport(User user) {
+        if (user == null) {
+            return "User must not be null";
+        }
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        validateUser(user);
+        return null;
+    }
+
+    private void flushImportChunk(List<User> chunk, List<BulkItemResult> pending) {
+        userStorage.addAll(chunk);
+        List<Long> ids = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            pending.get(i).setId(chunk.get(i).getId());
+            ids.add(chunk.get(i).getId());
+        }
+        TransactionHooks.afterCommit(() -> ids.forEach(id -> versions.bump(EntityVersions.Kind.USER, id)));
+        chunk.clear();
+        pending.clear();
     }
 
     public User update(User user) {
         validateUser(user);
-        findById(user.getId());
-        return userStorage.update(user);
+        ensureExists(user.getId());
+        User updated = userStorage.update(user);
+        versions.bump(EntityVersions.Kind.USER, updated.getId());
+        return updated;
     }
 
     private void validateUser(User user) {
@@ -47,33 +159,80 @@ public class UserService {
     }
 
     public void addFriend(Long userId, Long friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
-
-        userStorage.addFriend(userId, friendId);
+        ensureExists(userId);
+        ensureExists(friendId);
+        if (userStorage.addFriend(userId, friendId)) {
+            friendGraph.add(userId, friendId);
+            versions.bump(EntityVersions.Kind.USER, userId);
+        }
     }
 
     public void removeFriend(Long userId, Long friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
-
-        userStorage.removeFriend(userId, friendId);
+        ensureExists(userId);
+        ensureExists(friendId);
+        if (userStorage.removeFriend(userId, friendId)) {
+            friendGraph.remove(userId, friendId);
+            versions.bump(EntityVersions.Kind.USER, userId);
+        }
     }
 
     public List<User> getCommonFriends(Long userId, Long otherId) {
-        User user = findById(userId);
-        User otherUser = findById(otherId);
+        ensureExists(userId);
+        ensureExists(otherId);
+        if (!friendGraph.isLoaded()) {
+            return userStorage.getCommonFriends(userId, otherId);
+        }
+        return userStorage.findByIds(friendGraph.commonFriends(userId, otherId));
+    }
+
+    public int countCommonFriends(Long userId, Long otherId) {
+        ensureExists(userId);
+        ensureExists(otherId);
+        if (!friendGraph.isLoaded()) {
+            return userStorage.getCommonFriends(userId, otherId).size();
+        }
+        return friendGraph.countCommonFriends(userId, otherId);
+    }
+
+    public List<User> getSuggestedFriends(Long userId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("limit must be positive");
+        }
+        ensureExists(userId);
+        if (!friendGraph.isLoaded()) {
+            // граф достраивает фоновая загрузка, запрос не платит за полный проход по дружбам
+            return userStorage.getSuggestedFriends(userId, limit);
+        }
+        return userStorage.findByIds(friendGraph.suggest(userId, limit, suggestionFanOut));
+    }
+
+    public List<Film> getRecommendations(Long userId, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("limit must be positive");
+        }
+        ensureExists(userId);
+        return recommendationService.getRecommendations(userId, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFriendGraph() {
+        reloadFriendGraph();
+    }
 
-        return userStorage.getCommonFriends(userId, otherId);
+    @Scheduled(initialDelayString = "${filmorate.friend-graph.reload-interval-ms:300000}",
+            fixedDelayString = "${filmorate.friend-graph.reload-interval-ms:300000}")
+    public void reloadFriendGraph() {
+        friendGraph.reload(userStorage::forEachFriendship);
+        log.debug("Friend graph reloaded");
     }
 
     public List<User> getFriends(Long userId) {
-        User user = findById(userId);
+        ensureExists(userId);
         return userStorage.getFriends(userId);
     }
 
     public User getFriend(Long userId, Long friendId) {
-        User user = findById(userId);
+        ensureExists(userId);
         return findById(friendId);
     }
 }
\ No newline at end of file
@@ -9,4 +9,6 @@ public interface GenreStorage {
     List<Genre> findAll();
 
     Optional<Genre> findById(int id);
+
+    void reload();
 }
\ No newline at end of file
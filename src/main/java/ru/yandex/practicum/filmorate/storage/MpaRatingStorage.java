@@ -9,4 +9,6 @@ public interface MpaRatingStorage {
     List<MpaRating> findAll();
 
     Optional<MpaRating> findById(Long id);
+
+    void reload();
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.impl.LikeEventLog;
+import ru.yandex.practicum.filmorate.storage.impl.WriteBehindFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.nio.file.Path;
+
+@Configuration
+public class StorageConfiguration {
+
+    public static final String IN_MEMORY_PROFILE = "in-memory";
+
+    @Bean
+    @Profile("!" + IN_MEMORY_PROFILE)
+    public FilmStorage filmStorage(
+            @Qualifier("filmDbStorage") FilmStorage filmDbStorage,
+            @Value("${filmorate.likes.write-behind.enabled:false}") boolean writeBehindEnabled,
+            @Value("${filmorate.likes.write-behind.log-path:./db/likes.log}") String writeBehindLogPath,
+            @Value("${filmorate.film-cache.enabled:true}") boolean cacheEnabled,
+            @Value("${filmorate.film-cache.max-bytes:8388608}") long cacheMaxBytes,
+            MpaRatingStorage mpaRatingStorage,
+            MeterRegistry meterRegistry) {
+        FilmStorage storage = filmDbStorage;
+        if (cacheEnabled) {
+            storage = new CachingFilmStorage(storage, mpaRatingStorage,
+                    new EntityCache<>("films", cacheMaxBytes, CachingFilmStorage::weigh, meterRegistry));
+        }
+        // write-behind остаётся внешним слоем: у него @Scheduled flush и close при остановке контекста
+        if (writeBehindEnabled) {
+            storage = new WriteBehindFilmStorage(storage, new LikeEventLog(Path.of(writeBehindLogPath)));
+        }
+        return storage;
+    }
+
+    @Bean
+    @Profile("!" + IN_MEMORY_PROFILE)
+    public UserStorage userStorage(@Qualifier("userDbStorage") UserStorage userDbStorage) {
+        return userDbStorage;
+    }
+
+    @Bean("filmStorage")
+    @Profile(IN_MEMORY_PROFILE)
+    public FilmStorage inMemoryFilmStorage(GenreStorage genreStorage, MpaRatingStorage mpaRatingStorage) {
+        return new InMemoryFilmStorage(genreStorage, mpaRatingStorage);
+    }
+
+    @Bean("userStorage")
+    @Profile(IN_MEMORY_PROFILE)
+    public UserStorage inMemoryUserStorage() {
+        return new InMemoryUserStorage();
+    }
+}
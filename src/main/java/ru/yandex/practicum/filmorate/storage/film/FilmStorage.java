@@ -2,23 +2,56 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film add(Film film);
 
+    List<Film> addAll(List<Film> films);
+
     Film update(Film film);
 
     Optional<Film> findById(Long id);
 
+    List<Film> findByIds(Collection<Long> ids);
+
+    boolean existsById(Long id);
+
     List<Film> findAll();
 
-    void addLike(Long filmId, Long userId);
+    List<Film> findPage(Long afterId, int limit);
+
+    void exportAll(int fetchSize, Consumer<Film> action);
+
+    boolean addLike(Long filmId, Long userId);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    boolean hasLike(Long filmId, Long userId);
 
-    void removeLike(Long filmId, Long userId);
+    Map<Long, Set<Long>> getLikes(Collection<Long> filmIds);
+
+    void forEachLike(LikeConsumer action);
+
+    void applyLikeChanges(Map<Long, Set<Long>> added, Map<Long, Set<Long>> removed);
 
     List<Film> getPopularFilms(int count);
 
+    int reconcileLikeCounts();
+
+    Map<Long, Long> getLikeCounts();
+
     List<Film> getFilmsByGenre(Long genreId);
+
+    List<Film> getFilmsByGenrePage(Long genreId, Long afterId, int limit);
+
+    @FunctionalInterface
+    interface LikeConsumer {
+        void accept(long filmId, long userId);
+    }
 }
\ No newline at end of file
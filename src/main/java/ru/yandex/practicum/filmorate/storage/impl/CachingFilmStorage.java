@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import ru.yandex.practicum.filmorate.cache.EntityCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Кеш фильмов по id поверх хранилища. Запись идёт сквозь кеш: add/update сначала выполняются в хранилище,
+ * затем обновляют закешированную копию. Лайки в кеше не хранятся: у популярного фильма их миллионы,
+ * и копировать такое множество на каждый лайк и каждое чтение дороже, чем дочитать его одним запросом.
+ * Выгрузки и страницы списков (findAll, findPage, exportAll) идут мимо кеша, чтобы полный проход
+ * не вымывал горячие фильмы. Наружу отдаются копии, так что вызывающий код может менять полученные объекты.
+ */
+public class CachingFilmStorage implements FilmStorage {
+
+    // оценка байт на объект фильма с рейтингом и на один жанр; строки считаются по два байта на символ
+    private static final long FILM_OVERHEAD = 160;
+    private static final long GENRE_OVERHEAD = 48;
+
+    private final FilmStorage delegate;
+    private final MpaRatingStorage mpaRatingStorage;
+    private final EntityCache<Long, Film> cache;
+
+    public CachingFilmStorage(FilmStorage delegate, MpaRatingStorage mpaRatingStorage, EntityCache<Long, Film> cache) {
+        this.delegate = delegate;
+        this.mpaRatingStorage = mpaRatingStorage;
+        this.cache = cache;
+    }
+
+    @Override
+    public Film add(Film film) {
+        Film created = delegate.add(film);
+        cache.put(created.getId(), copy(created, resolveMpa(created), Set.of()));
+        return created;
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        // импорт не прогреваем: тысячи новых фильмов вытеснили бы из кеша востребованные
+        return delegate.addAll(films);
+    }
+
+    @Override
+    public Film update(Film film) {
+        Film updated = delegate.update(film);
+        MpaRating mpa = resolveMpa(updated);
+        cache.update(updated.getId(), cached -> copy(updated, mpa, Set.of()));
+        return updated;
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        Film cached = cache.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached, cached.getMpa(), delegate.getLikes(List.of(id)).get(id)));
+        }
+        long stamp = cache.stamp(id);
+        Optional<Film> loaded = delegate.findById(id);
+        loaded.ifPresent(film -> cache.putLoaded(id, copy(film, film.getMpa(), Set.of()), stamp));
+        return loaded;
+    }
+
+    @Override
+    public List<Film> findByIds(Collection<Long> ids) {
+        Map<Long, Film> found = new HashMap<>();
+        Map<Long, Film> hits = new HashMap<>();
+        Map<Long, Long> stamps = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (hits.containsKey(id) || stamps.containsKey(id)) {
+                continue;
+            }
+            Film cached = cache.get(id);
+            if (cached != null) {
+                hits.put(id, cached);
+            } else {
+                stamps.put(id, cache.stamp(id));
+            }
+        }
+        if (!hits.isEmpty()) {
+            Map<Long, Set<Long>> likes = delegate.getLikes(hits.keySet());
+            hits.forEach((id, cached) -> found.put(id, copy(cached, cached.getMpa(), likes.get(id))));
+        }
+        if (!stamps.isEmpty()) {
+            for (Film film : delegate.findByIds(stamps.keySet())) {
+                cache.putLoaded(film.getId(), copy(film, film.getMpa(), Set.of()), stamps.get(film.getId()));
+                found.put(film.getId(), film);
+            }
+        }
+        List<Film> films = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            Film film = found.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        // фильмы не удаляются, поэтому присутствие в кеше достаточно
+        return cache.contains(id) || delegate.existsById(id);
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Film> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public void exportAll(int fetchSize, Consumer<Film> action) {
+        delegate.exportAll(fetchSize, action);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        return delegate.addLike(filmId, userId);
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        return delegate.removeLike(filmId, userId);
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        return delegate.hasLike(filmId, userId);
+    }
+
+    @Override
+    public Map<Long, Set<Long>> getLikes(Collection<Long> filmIds) {
+        return delegate.getLikes(filmIds);
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer action) {
+        delegate.forEachLike(action);
+    }
+
+    @Override
+    public void applyLikeChanges(Map<Long, Set<Long>> added, Map<Long, Set<Long>> removed) {
+        delegate.applyLikeChanges(added, removed);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return delegate.getPopularFilms(count);
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        return delegate.reconcileLikeCounts();
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCounts() {
+        return delegate.getLikeCounts();
+    }
+
+    @Override
+    public List<Film> getFilmsByGenre(Long genreId) {
+        return delegate.getFilmsByGenre(genreId);
+    }
+
+    @Override
+    public List<Film> getFilmsByGenrePage(Long genreId, Long afterId, int limit) {
+        return delegate.getFilmsByGenrePage(genreId, afterId, limit);
+    }
+
+    private MpaRating resolveMpa(Film film) {
+        // в теле запроса у рейтинга обычно только id, а из хранилища он читается с названием
+        if (film.getMpa() == null) {
+            return null;
+        }
+        return mpaRatingStorage.findById(film.getMpa().getId()).orElse(film.getMpa());
+    }
+
+    /**
+     * Оценка байт, которые закешированный фильм занимает в памяти; по ней кеш ограничивает свой размер.
+     */
+    public static long weigh(Film film) {
+        long chars = length(film.getName()) + length(film.getDescription());
+        if (film.getMpa() != null) {
+            chars += length(film.getMpa().getName());
+        }
+        int genres = film.getGenres() == null ? 0 : film.getGenres().size();
+        return FILM_OVERHEAD + 2 * chars + GENRE_OVERHEAD * genres;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static Film copy(Film film, MpaRating mpa, Set<Long> likes) {
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), mpa, new HashSet<>(film.getGenres()),
+                likes == null ? new HashSet<>() : new HashSet<>(likes));
+    }
+}
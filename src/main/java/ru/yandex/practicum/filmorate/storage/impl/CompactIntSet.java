@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Отсортированное множество int на массиве. Не потокобезопасно: синхронизацию обеспечивает владелец.
+ */
+final class CompactIntSet {
+    private static final int[] NO_VALUES = new int[0];
+
+    private int[] values = NO_VALUES;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    boolean add(int value) {
+        int insertAt;
+        if (size == 0 || values[size - 1] < value) {
+            insertAt = size;
+        } else {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            insertAt = -index - 1;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Позиция первого элемента, строго большего value.
+     */
+    int indexAfter(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    int[] intersect(CompactIntSet other) {
+        int[] result = new int[Math.min(size, other.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (values[i] < other.values[j]) {
+                i++;
+            } else if (values[i] > other.values[j]) {
+                j++;
+            } else {
+                result[count++] = values[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    Set<Long> toLongSet() {
+        Set<Long> result = new HashSet<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            result.add((long) values[i]);
+        }
+        return result;
+    }
+}
@@ -1,26 +1,41 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository("filmDbStorage")
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int HYDRATION_CHUNK_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final GenreStorage genreStorage;
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, GenreStorage genreStorage) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.genreStorage = genreStorage;
     }
 
     private final RowMapper<Film> filmRowMapper = (rs, rowNum) -> {
@@ -35,6 +50,7 @@ public class FilmDbStorage implements FilmStorage {
     };
 
     @Override
+    @Transactional
     public Film add(Film film) {
         String sql = "INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
@@ -49,41 +65,109 @@ public class FilmDbStorage implements FilmStorage {
         }, keyHolder);
         film.setId(keyHolder.getKey().longValue());
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            for (Genre genre : film.getGenres()) {
-                jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
-                        film.getId(), genre.getId());
-            }
+        Map<Long, Genre> genres = resolveGenres(film.getGenres());
+        insertGenres(film.getId(), genres.keySet());
+        film.setGenres(genres.values());
+        film.setLikes(new HashSet<>());
+        return film;
+    }
 
-            Set<Genre> savedGenres = new HashSet<>(getGenresForFilm(film.getId()));
-            film.setGenres(savedGenres);
+    @Override
+    @Transactional
+    public List<Film> addAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
         }
+        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"film_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setObject(3, film.getReleaseDate());
+                        ps.setInt(4, film.getDuration());
+                        ps.setInt(5, Math.toIntExact(film.getMpa().getId()));
+                    }
 
-        film.setLikes(new HashSet<>());
-        return film;
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> genreBatch = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            Map<Long, Genre> genres = resolveGenres(film.getGenres());
+            for (Long genreId : genres.keySet()) {
+                genreBatch.add(new Object[]{film.getId(), genreId});
+            }
+            film.setGenres(genres.values());
+            film.setLikes(new HashSet<>());
+        }
+        if (!genreBatch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreBatch);
+        }
+        return films;
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
         String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_rating_id = ? WHERE film_id = ?";
         jdbcTemplate.update(sql, film.getName(), film.getDescription(), film.getReleaseDate(),
                 film.getDuration(), film.getMpa().getId(), film.getId());
 
-        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
+        Map<Long, Genre> genres = resolveGenres(film.getGenres());
+        Set<Long> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ?", Long.class, film.getId()));
+
+        Set<Long> added = new HashSet<>(genres.keySet());
+        added.removeAll(stored);
+        Set<Long> removed = new HashSet<>(stored);
+        removed.removeAll(genres.keySet());
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            for (Genre genre : film.getGenres()) {
-                jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
-                        film.getId(), genre.getId());
+        deleteGenres(film.getId(), removed);
+        insertGenres(film.getId(), added);
+        film.setGenres(genres.values());
+        return film;
+    }
+
+    private Map<Long, Genre> resolveGenres(Collection<Genre> requested) {
+        Map<Long, Genre> genres = new TreeMap<>();
+        if (requested != null) {
+            for (Genre genre : requested) {
+                genres.computeIfAbsent(genre.getId(), id -> genreStorage.findById(Math.toIntExact(id)).orElse(genre));
             }
+        }
+        return genres;
+    }
 
-            Set<Genre> savedGenres = new HashSet<>(getGenresForFilm(film.getId()));
-            film.setGenres(savedGenres);
-        } else {
-            film.setGenres(new HashSet<>());
+    private void insertGenres(Long filmId, Collection<Long> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(genreIds.size());
+        for (Long genreId : genreIds) {
+            batch.add(new Object[]{filmId, genreId});
         }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", batch);
+    }
 
-        return film;
+    private void deleteGenres(Long filmId, Collection<Long> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(genreIds.size());
+        for (Long genreId : genreIds) {
+            batch.add(new Object[]{filmId, genreId});
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?", batch);
     }
 
     @Override
@@ -105,18 +189,75 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    @Override
+    public boolean existsById(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM films WHERE film_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    @Override
+    public List<Film> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT f.*, m.name AS mpa_name FROM films f " +
+                "JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id " +
+                "WHERE f.film_id IN (:ids)";
+        List<Long> idList = new ArrayList<>(ids);
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (int from = 0; from < idList.size(); from += HYDRATION_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    idList.subList(from, Math.min(from + HYDRATION_CHUNK_SIZE, idList.size())));
+            for (Film film : namedJdbcTemplate.query(sql, params, filmRowMapper)) {
+                filmsById.put(film.getId(), film);
+            }
+        }
+
+        List<Film> films = new ArrayList<>(filmsById.size());
+        for (Long id : idList) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        hydrate(films);
+        return films;
+    }
+
     @Override
     public List<Film> findAll() {
         String sql = "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id";
         List<Film> films = jdbcTemplate.query(sql, filmRowMapper);
-        for (Film film : films) {
-            Set<Genre> genres = new HashSet<>(getGenresForFilm(film.getId()));
-            film.setGenres(genres);
-            film.setLikes(getLikesForFilm(film.getId()));
-        }
+        hydrate(films);
         return films;
     }
 
+    @Override
+    public List<Film> findPage(Long afterId, int limit) {
+        String sql = "SELECT f.*, m.name AS mpa_name FROM films f " +
+                "JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id " +
+                "WHERE f.film_id > ? " +
+                "ORDER BY f.film_id LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sql, filmRowMapper, afterId == null ? 0 : afterId, limit);
+        hydrate(films);
+        return films;
+    }
+
+    @Override
+    public void exportAll(int fetchSize, Consumer<Film> action) {
+        // выгружаем страницами по ключу: соединение берётся на время запроса страницы
+        // и возвращается в пул до того, как строки уйдут медленному клиенту
+        long afterId = 0;
+        List<Film> page;
+        do {
+            page = findPage(afterId, fetchSize);
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == fetchSize);
+    }
+
     @Override
     public List<Film> getFilmsByGenre(Long genreId) {
         String sql = "SELECT f.*, m.name AS mpa_name FROM films f " +
@@ -125,13 +266,19 @@ public class FilmDbStorage implements FilmStorage {
                 "WHERE fg.genre_id = ? " +
                 "ORDER BY f.film_id";
         List<Film> films = jdbcTemplate.query(sql, filmRowMapper, genreId);
+        hydrate(films);
+        return films;
+    }
 
-        for (Film film : films) {
-            Set<Genre> genres = new HashSet<>(getGenresForFilm(film.getId()));
-            film.setGenres(genres);
-            film.setLikes(getLikesForFilm(film.getId()));
-        }
-
+    @Override
+    public List<Film> getFilmsByGenrePage(Long genreId, Long afterId, int limit) {
+        String sql = "SELECT f.*, m.name AS mpa_name FROM films f " +
+                "JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id " +
+                "JOIN film_genres fg ON f.film_id = fg.film_id " +
+                "WHERE fg.genre_id = ? AND f.film_id > ? " +
+                "ORDER BY f.film_id LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sql, filmRowMapper, genreId, afterId == null ? 0 : afterId, limit);
+        hydrate(films);
         return films;
     }
 
@@ -148,29 +295,144 @@ public class FilmDbStorage implements FilmStorage {
         return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, filmId));
     }
 
+    private void hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Long, Film> filmsById = new LinkedHashMap<>();
+        for (Film film : films) {
+            film.setGenres(new HashSet<>());
+            film.setLikes(new HashSet<>());
+            filmsById.put(film.getId(), film);
+        }
+
+        List<Long> ids = new ArrayList<>(filmsById.keySet());
+        for (int from = 0; from < ids.size(); from += HYDRATION_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    ids.subList(from, Math.min(from + HYDRATION_CHUNK_SIZE, ids.size())));
+
+            Map<Long, Set<Genre>> genresByFilm = new HashMap<>();
+            namedJdbcTemplate.query("SELECT fg.film_id, g.genre_id, g.name FROM film_genres fg " +
+                    "JOIN genres g ON fg.genre_id = g.genre_id WHERE fg.film_id IN (:ids)", params, rs -> {
+                genresByFilm.computeIfAbsent(rs.getLong("film_id"), id -> new HashSet<>())
+                        .add(new Genre(rs.getLong("genre_id"), rs.getString("name")));
+            });
+            genresByFilm.forEach((filmId, genres) -> filmsById.get(filmId).setGenres(genres));
+        }
+        getLikes(ids).forEach((filmId, likes) -> filmsById.get(filmId).setLikes(likes));
+    }
+
     @Override
-    public void addLike(Long filmId, Long userId) {
-        String sql = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+    public Map<Long, Set<Long>> getLikes(Collection<Long> filmIds) {
+        Map<Long, Set<Long>> likesByFilm = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(filmIds));
+        for (int from = 0; from < ids.size(); from += HYDRATION_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    ids.subList(from, Math.min(from + HYDRATION_CHUNK_SIZE, ids.size())));
+            namedJdbcTemplate.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)", params, rs -> {
+                likesByFilm.computeIfAbsent(rs.getLong("film_id"), id -> new HashSet<>()).add(rs.getLong("user_id"));
+            });
+        }
+        return likesByFilm;
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        String sql = "INSERT INTO likes (film_id, user_id) SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+        try {
+            if (jdbcTemplate.update(sql, filmId, userId, filmId, userId) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException exception) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count + 1 WHERE film_id = ?", filmId);
+        return true;
     }
 
     @Override
-    public void removeLike(Long filmId, Long userId) {
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
         String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 WHERE film_id = ?", filmId);
+        return true;
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, filmId, userId));
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer action) {
+        String sql = "SELECT film_id, user_id FROM likes ORDER BY film_id, user_id";
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> action.accept(rs.getLong("film_id"), rs.getLong("user_id")));
+    }
+
+    @Override
+    @Transactional
+    public void applyLikeChanges(Map<Long, Set<Long>> added, Map<Long, Set<Long>> removed) {
+        List<Object[]> inserts = new ArrayList<>();
+        added.forEach((filmId, userIds) -> userIds.forEach(userId ->
+                inserts.add(new Object[]{filmId, userId, filmId, userId})));
+        int[] inserted = jdbcTemplate.batchUpdate("INSERT INTO likes (film_id, user_id) SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)", inserts);
+
+        List<Object[]> deletes = new ArrayList<>();
+        removed.forEach((filmId, userIds) -> userIds.forEach(userId -> deletes.add(new Object[]{filmId, userId})));
+        int[] deleted = jdbcTemplate.batchUpdate("DELETE FROM likes WHERE film_id = ? AND user_id = ?", deletes);
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                deltas.merge((Long) inserts.get(i)[0], 1, Integer::sum);
+            }
+        }
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                deltas.merge((Long) deletes.get(i)[0], -1, Integer::sum);
+            }
+        }
+        List<Object[]> counterUpdates = new ArrayList<>();
+        deltas.forEach((filmId, delta) -> {
+            if (delta != 0) {
+                counterUpdates.add(new Object[]{delta, filmId});
+            }
+        });
+        if (!counterUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE films SET like_count = like_count + ? WHERE film_id = ?", counterUpdates);
+        }
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        String sql = "UPDATE films f SET like_count = " +
+                "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id) " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)";
+        return jdbcTemplate.update(sql);
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCounts() {
+        String sql = "SELECT film_id, like_count AS likes FROM films ORDER BY film_id";
+        Map<Long, Long> likeCounts = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> likeCounts.put(rs.getLong("film_id"), rs.getLong("likes")));
+        return likeCounts;
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
-        String sql = "SELECT f.*, m.name AS mpa_name, COUNT(l.user_id) AS like_count " +
+        String sql = "SELECT f.*, m.name AS mpa_name " +
                 "FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id " +
-                "LEFT JOIN likes l ON f.film_id = l.film_id " +
-                "GROUP BY f.film_id ORDER BY like_count DESC LIMIT ?";
+                "ORDER BY f.like_count DESC, f.film_id LIMIT ?";
         List<Film> films = jdbcTemplate.query(sql, filmRowMapper, count);
-        for (Film film : films) {
-            film.setGenres(new HashSet<>(getGenresForFilm(film.getId())));
-            film.setLikes(getLikesForFilm(film.getId()));
-        }
+        hydrate(films);
         return films;
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
-import org.springframework.dao.EmptyResultDataAccessException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -13,27 +13,28 @@ import java.util.Optional;
 public class GenreDbStorage implements GenreStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private volatile ReferenceTable<Genre> genres;
 
     public GenreDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @PostConstruct
     @Override
-    public List<Genre> findAll() {
+    public void reload() {
         String sql = "SELECT genre_id as id, name FROM genres ORDER BY genre_id";
-        return jdbcTemplate.query(sql, (ResultSet, rowNum) ->
+        List<Genre> rows = jdbcTemplate.query(sql, (ResultSet, rowNum) ->
                 new Genre((long) ResultSet.getInt("id"), ResultSet.getString("name")));
+        genres = new ReferenceTable<>(rows, Genre::getId);
+    }
+
+    @Override
+    public List<Genre> findAll() {
+        return genres.findAll();
     }
 
     @Override
     public Optional<Genre> findById(int id) {
-        String sql = "SELECT genre_id as id, name FROM genres WHERE genre_id = ?";
-        try {
-            Genre genre = jdbcTemplate.queryForObject(sql, (ResultSet, rowNum) ->
-                    new Genre((long) ResultSet.getInt("id"), ResultSet.getString("name")), id);
-            return Optional.ofNullable(genre);
-        } catch (EmptyResultDataAccessException exception) {
-            return Optional.empty();
-        }
+        return genres.findById(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,373 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+public class InMemoryFilmStorage implements FilmStorage {
+
+    private static final Comparator<FilmRecord> POPULARITY_ORDER =
+            Comparator.<FilmRecord>comparingInt(record -> record.likes.size()).reversed()
+                    .thenComparingInt(record -> record.id);
+
+    private final GenreStorage genreStorage;
+    private final MpaRatingStorage mpaRatingStorage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<FilmRecord> films = new ArrayList<>();
+    private CompactIntSet[] filmsByGenre = new CompactIntSet[0];
+
+    public InMemoryFilmStorage(GenreStorage genreStorage, MpaRatingStorage mpaRatingStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaRatingStorage = mpaRatingStorage;
+    }
+
+    private static final class FilmRecord {
+        private final int id;
+        private String name;
+        private String description;
+        private LocalDate releaseDate;
+        private int duration;
+        private long mpaId;
+        private final CompactIntSet genres = new CompactIntSet();
+        private final CompactIntSet likes = new CompactIntSet();
+
+        private FilmRecord(int id) {
+            this.id = id;
+        }
+    }
+
+    @Override
+    public Film add(Film film) {
+        lock.writeLock().lock();
+        try {
+            return insert(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        lock.writeLock().lock();
+        try {
+            for (Film film : films) {
+                insert(film);
+            }
+            return films;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Film insert(Film film) {
+        FilmRecord record = new FilmRecord(films.size() + 1);
+        films.add(record);
+        write(record, film);
+        film.setId((long) record.id);
+        film.setGenres(toGenres(record.genres));
+        film.setLikes(new HashSet<>());
+        return film;
+    }
+
+    @Override
+    public Film update(Film film) {
+        lock.writeLock().lock();
+        try {
+            FilmRecord record = record(film.getId());
+            if (record != null) {
+                write(record, film);
+                film.setGenres(toGenres(record.genres));
+            }
+            return film;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(FilmRecord record, Film film) {
+        record.name = film.getName();
+        record.description = film.getDescription();
+        record.releaseDate = film.getReleaseDate();
+        record.duration = film.getDuration();
+        record.mpaId = film.getMpa().getId();
+
+        CompactIntSet requested = new CompactIntSet();
+        for (Genre genre : film.getGenres()) {
+            requested.add(Math.toIntExact(genre.getId()));
+        }
+        record.genres.forEach(genreId -> {
+            if (!requested.contains(genreId)) {
+                genreIndex(genreId).remove(record.id);
+            }
+        });
+        requested.forEach(genreId -> genreIndex(genreId).add(record.id));
+        record.genres.clear();
+        requested.forEach(record.genres::add);
+    }
+
+    private CompactIntSet genreIndex(int genreId) {
+        if (genreId >= filmsByGenre.length) {
+            filmsByGenre = Arrays.copyOf(filmsByGenre, genreId + 1);
+        }
+        if (filmsByGenre[genreId] == null) {
+            filmsByGenre[genreId] = new CompactIntSet();
+        }
+        return filmsByGenre[genreId];
+    }
+
+    private FilmRecord record(Long id) {
+        if (id == null || id < 1 || id > films.size()) {
+            return null;
+        }
+        return films.get((int) (id - 1));
+    }
+
+    private Film toFilm(FilmRecord record) {
+        Film film = new Film();
+        film.setId((long) record.id);
+        film.setName(record.name);
+        film.setDescription(record.description);
+        film.setReleaseDate(record.releaseDate);
+        film.setDuration(record.duration);
+        film.setMpa(new MpaRating(record.mpaId,
+                mpaRatingStorage.findById(record.mpaId).map(MpaRating::getName).orElse(null)));
+        film.setGenres(toGenres(record.genres));
+        film.setLikes(record.likes.toLongSet());
+        return film;
+    }
+
+    private List<Genre> toGenres(CompactIntSet genreIds) {
+        List<Genre> genres = new ArrayList<>(genreIds.size());
+        genreIds.forEach(genreId -> genres.add(new Genre((long) genreId,
+                genreStorage.findById(genreId).map(Genre::getName).orElse(null))));
+        return genres;
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(record(id)).map(this::toFilm);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> findByIds(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<Film> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                FilmRecord record = record(id);
+                if (record != null) {
+                    result.add(toFilm(record));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return record(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return findPage(0L, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Film> findPage(Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = (int) Math.min(Math.max(afterId == null ? 0 : afterId, 0), films.size());
+            int to = (int) Math.min((long) from + limit, films.size());
+            List<Film> result = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                result.add(toFilm(films.get(i)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void exportAll(int fetchSize, Consumer<Film> action) {
+        long afterId = 0;
+        List<Film> chunk;
+        do {
+            chunk = findPage(afterId, fetchSize);
+            chunk.forEach(action);
+            afterId += chunk.size();
+        } while (chunk.size() == fetchSize);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            FilmRecord record = record(filmId);
+            return record != null && record.likes.add(Math.toIntExact(userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            FilmRecord record = record(filmId);
+            return record != null && record.likes.remove(Math.toIntExact(userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        lock.readLock().lock();
+        try {
+            FilmRecord record = record(filmId);
+            return record != null && record.likes.contains(Math.toIntExact(userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, Set<Long>> getLikes(Collection<Long> filmIds) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Set<Long>> likesByFilm = new HashMap<>();
+            for (Long filmId : filmIds) {
+                FilmRecord record = record(filmId);
+                if (record != null && !record.likes.isEmpty()) {
+                    likesByFilm.put(filmId, record.likes.toLongSet());
+                }
+            }
+            return likesByFilm;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer action) {
+        lock.readLock().lock();
+        try {
+            for (FilmRecord record : films) {
+                record.likes.forEach(userId -> action.accept(record.id, userId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void applyLikeChanges(Map<Long, Set<Long>> added, Map<Long, Set<Long>> removed) {
+        lock.writeLock().lock();
+        try {
+            added.forEach((filmId, userIds) -> {
+                FilmRecord record = record(filmId);
+                if (record != null) {
+                    userIds.forEach(userId -> record.likes.add(Math.toIntExact(userId)));
+                }
+            });
+            removed.forEach((filmId, userIds) -> {
+                FilmRecord record = record(filmId);
+                if (record != null) {
+                    userIds.forEach(userId -> record.likes.remove(Math.toIntExact(userId)));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        lock.readLock().lock();
+        try {
+            PriorityQueue<FilmRecord> top = new PriorityQueue<>(POPULARITY_ORDER.reversed());
+            for (FilmRecord record : films) {
+                top.add(record);
+                if (top.size() > count) {
+                    top.poll();
+                }
+            }
+            List<FilmRecord> ranked = new ArrayList<>(top);
+            ranked.sort(POPULARITY_ORDER);
+            List<Film> result = new ArrayList<>(ranked.size());
+            for (FilmRecord record : ranked) {
+                result.add(toFilm(record));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        return 0;
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCounts() {
+        lock.readLock().lock();
+        try {
+            Map<Long, Long> likeCounts = new HashMap<>(films.size() * 2);
+            for (FilmRecord record : films) {
+                likeCounts.put((long) record.id, (long) record.likes.size());
+            }
+            return likeCounts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Film> getFilmsByGenre(Long genreId) {
+        return getFilmsByGenrePage(genreId, 0L, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Film> getFilmsByGenrePage(Long genreId, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            if (genreId == null || genreId < 0 || genreId >= filmsByGenre.length || filmsByGenre[genreId.intValue()] == null) {
+                return new ArrayList<>();
+            }
+            CompactIntSet filmIds = filmsByGenre[genreId.intValue()];
+            int from = filmIds.indexAfter((int) Math.min(afterId == null ? 0 : afterId, Integer.MAX_VALUE));
+            int to = (int) Math.min((long) from + limit, filmIds.size());
+            List<Film> result = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                result.add(toFilm(films.get(filmIds.get(i) - 1)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+public class InMemoryUserStorage implements UserStorage {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<UserRecord> users = new ArrayList<>();
+
+    private static final class UserRecord {
+        private final int id;
+        private String email;
+        private String login;
+        private String name;
+        private LocalDate birthday;
+        private final CompactIntSet friends = new CompactIntSet();
+
+        private UserRecord(int id) {
+            this.id = id;
+        }
+    }
+
+    @Override
+    public User add(User user) {
+        lock.writeLock().lock();
+        try {
+            return insert(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> addAll(List<User> users) {
+        lock.writeLock().lock();
+        try {
+            for (User user : users) {
+                insert(user);
+            }
+            return users;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private User insert(User user) {
+        UserRecord record = new UserRecord(users.size() + 1);
+        users.add(record);
+        write(record, user);
+        user.setId((long) record.id);
+        user.setFriends(new HashSet<>());
+        return user;
+    }
+
+    @Override
+    public User update(User user) {
+        lock.writeLock().lock();
+        try {
+            UserRecord record = record(user.getId());
+            if (record != null) {
+                write(record, user);
+            }
+            return user;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(UserRecord record, User user) {
+        record.email = user.getEmail();
+        record.login = user.getLogin();
+        record.name = user.getName();
+        record.birthday = user.getBirthday();
+    }
+
+    private UserRecord record(Long id) {
+        if (id == null || id < 1 || id > users.size()) {
+            return null;
+        }
+        return users.get((int) (id - 1));
+    }
+
+    private User toUser(UserRecord record) {
+        User user = new User();
+        user.setId((long) record.id);
+        user.setEmail(record.email);
+        user.setLogin(record.login);
+        user.setName(record.name);
+        user.setBirthday(record.birthday);
+        user.setFriends(record.friends.toLongSet());
+        return user;
+    }
+
+    private List<User> toUsers(int[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(toUser(users.get(id - 1)));
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(record(id)).map(this::toUser);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<User> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                UserRecord record = record(id);
+                if (record != null) {
+                    result.add(toUser(record));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return record(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return findPage(0L, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = (int) Math.min(Math.max(afterId == null ? 0 : afterId, 0), users.size());
+            int to = (int) Math.min((long) from + limit, users.size());
+            List<User> result = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                result.add(toUser(users.get(i)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void exportAll(int fetchSize, Consumer<User> action) {
+        long afterId = 0;
+        List<User> chunk;
+        do {
+            chunk = findPage(afterId, fetchSize);
+            chunk.forEach(action);
+            afterId += chunk.size();
+        } while (chunk.size() == fetchSize);
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        lock.writeLock().lock();
+        try {
+            UserRecord record = record(userId);
+            return record != null && record(friendId) != null && record.friends.add(Math.toIntExact(friendId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        lock.writeLock().lock();
+        try {
+            UserRecord record = record(userId);
+            return record != null && record.friends.remove(Math.toIntExact(friendId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) {
+        lock.readLock().lock();
+        try {
+            UserRecord user = record(userId);
+            UserRecord other = record(otherId);
+            if (user == null || other == null) {
+                return new ArrayList<>();
+            }
+            return toUsers(user.friends.intersect(other.friends));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) {
+        lock.readLock().lock();
+        try {
+            UserRecord user = record(userId);
+            if (user == null) {
+                return new ArrayList<>();
+            }
+            return toUsers(user.friends.toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> getSuggestedFriends(Long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            UserRecord user = record(userId);
+            if (user == null) {
+                return new ArrayList<>();
+            }
+            Map<Integer, Integer> mutualFriends = new HashMap<>();
+            user.friends.forEach(friendId -> users.get(friendId - 1).friends.forEach(candidateId -> {
+                if (candidateId != user.id && !user.friends.contains(candidateId)) {
+                    mutualFriends.merge(candidateId, 1, Integer::sum);
+                }
+            }));
+            return toUsers(mutualFriends.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachFriendship(FriendshipConsumer action) {
+        lock.readLock().lock();
+        try {
+            for (UserRecord record : users) {
+                record.friends.forEach(friendId -> action.accept(record.id, friendId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
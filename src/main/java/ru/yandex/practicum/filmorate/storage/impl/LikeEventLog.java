@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class LikeEventLog implements Closeable {
+
+    public interface Replayer {
+        void apply(long filmId, long userId, boolean liked);
+    }
+
+    private final Path path;
+    private final Path flushingPath;
+    private FileChannel channel;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private long appended;
+    private long durable;
+    private boolean syncing;
+    private IOException failure;
+
+    public LikeEventLog(Path path) {
+        this.path = path;
+        this.flushingPath = path.resolveSibling(path.getFileName() + ".flushing");
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ставит запись в буфер и возвращает её номер. Принятой запись считается только после
+     * {@link #sync(long)}: без fsync она осталась бы в кеше страниц ОС, и отключение питания
+     * потеряло бы уже подтверждённый клиенту лайк.
+     */
+    public synchronized long append(long filmId, long userId, boolean liked) {
+        buffer.writeBytes(((liked ? "L " : "U ") + filmId + " " + userId + "\n").getBytes(StandardCharsets.UTF_8));
+        return ++appended;
+    }
+
+    /**
+     * Групповая фиксация: первый ожидающий пишет на диск всё накопленное одним fsync,
+     * остальные ждут его и возвращаются, если их запись попала в этот пакет.
+     */
+    public void sync(long sequence) {
+        byte[] bytes;
+        FileChannel target;
+        long batchEnd;
+        synchronized (this) {
+            while (true) {
+                if (failure != null) {
+                    throw new UncheckedIOException(failure);
+                }
+                if (durable >= sequence) {
+                    return;
+                }
+                if (!syncing) {
+                    break;
+                }
+                awaitSync();
+            }
+            syncing = true;
+            bytes = buffer.toByteArray();
+            buffer = new ByteArrayOutputStream();
+            target = channel;
+            batchEnd = appended;
+        }
+        try {
+            write(target, bytes);
+            target.force(false);
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+            }
+            throw new UncheckedIOException(e);
+        } finally {
+            synchronized (this) {
+                syncing = false;
+                if (failure == null) {
+                    durable = batchEnd;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    public synchronized void rotate() {
+        while (syncing) {
+            awaitSync();
+        }
+        try {
+            write(channel, buffer.toByteArray());
+            buffer.reset();
+            channel.force(false);
+            durable = appended;
+            notifyAll();
+            channel.close();
+            if (Files.exists(flushingPath)) {
+                try (FileChannel flushing = FileChannel.open(flushingPath, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)) {
+                    write(flushing, Files.readAllBytes(path));
+                    flushing.force(false);
+                }
+                Files.delete(path);
+            } else {
+                Files.move(path, flushingPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            channel = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void completeFlush() {
+        try {
+            Files.deleteIfExists(flushingPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void replay(Replayer replayer) {
+        try {
+            for (Path file : new Path[]{flushingPath, path}) {
+                if (!Files.exists(file)) {
+                    continue;
+                }
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] parts = line.split(" ");
+                        if (parts.length != 3) {
+                            continue;
+                        }
+                        replayer.apply(Long.parseLong(parts[1]), Long.parseLong(parts[2]), "L".equals(parts[0]));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        while (syncing) {
+            awaitSync();
+        }
+        write(channel, buffer.toByteArray());
+        buffer.reset();
+        channel.force(false);
+        channel.close();
+    }
+
+    private void awaitSync() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the like log to sync", e);
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void write(FileChannel target, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
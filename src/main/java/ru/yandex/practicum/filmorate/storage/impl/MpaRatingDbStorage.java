@@ -1,6 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
-import org.springframework.dao.EmptyResultDataAccessException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.MpaRating;
@@ -13,27 +13,28 @@ import java.util.Optional;
 public class MpaRatingDbStorage implements MpaRatingStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private volatile ReferenceTable<MpaRating> mpaRatings;
 
     public MpaRatingDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @PostConstruct
     @Override
-    public List<MpaRating> findAll() {
+    public void reload() {
         String sql = "SELECT mpa_rating_id as id, name FROM mpa_ratings ORDER BY mpa_rating_id";
-        return jdbcTemplate.query(sql, (ResultSet, rowNum) ->
+        List<MpaRating> rows = jdbcTemplate.query(sql, (ResultSet, rowNum) ->
                 new MpaRating((long) ResultSet.getInt("id"), ResultSet.getString("name")));
+        mpaRatings = new ReferenceTable<>(rows, MpaRating::getId);
+    }
+
+    @Override
+    public List<MpaRating> findAll() {
+        return mpaRatings.findAll();
     }
 
     @Override
     public Optional<MpaRating> findById(Long id) {
-        String sql = "SELECT mpa_rating_id as id, name FROM mpa_ratings WHERE mpa_rating_id = ?";
-        try {
-            MpaRating mpaRating = jdbcTemplate.queryForObject(sql, (ResultSet, rowNum) ->
-                    new MpaRating((long) ResultSet.getInt("id"), ResultSet.getString("name")), id);
-            return Optional.ofNullable(mpaRating);
-        } catch (EmptyResultDataAccessException exception) {
-            return Optional.empty();
-        }
+        return id == null ? Optional.empty() : mpaRatings.findById(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+final class ReferenceTable<T> {
+    private final Object[] byId;
+    private final List<T> all;
+
+    ReferenceTable(List<T> rows, Function<T, Long> idExtractor) {
+        long maxId = rows.stream().mapToLong(idExtractor::apply).max().orElse(0);
+        this.byId = new Object[Math.toIntExact(maxId + 1)];
+        for (T row : rows) {
+            byId[Math.toIntExact(idExtractor.apply(row))] = row;
+        }
+        this.all = List.copyOf(rows);
+    }
+
+    List<T> findAll() {
+        return all;
+    }
+
+    @SuppressWarnings("unchecked")
+    Optional<T> findById(long id) {
+        if (id < 0 || id >= byId.length) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((T) byId[(int) id]);
+    }
+}
@@ -1,10 +1,16 @@
 package ru.yandex.practicum.filmorate.storage.impl;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
@@ -12,14 +18,19 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository("userDbStorage")
 public class UserDbStorage implements UserStorage {
 
+    private static final int FRIENDS_CHUNK_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
 
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
     }
 
     @Override
@@ -38,6 +49,39 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    @Transactional
+    public List<User> addAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"user_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        User user = users.get(i);
+                        ps.setString(1, user.getEmail());
+                        ps.setString(2, user.getLogin());
+                        ps.setString(3, user.getName());
+                        ps.setObject(4, user.getBirthday());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            users.get(i).setFriends(new HashSet<>());
+        }
+        return users;
+    }
+
     @Override
     public User update(User user) {
         String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?";
@@ -60,30 +104,108 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    @Override
+    public List<User> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        Map<Long, User> usersById = new HashMap<>();
+        for (int from = 0; from < idList.size(); from += FRIENDS_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    idList.subList(from, Math.min(from + FRIENDS_CHUNK_SIZE, idList.size())));
+            for (User user : namedJdbcTemplate.query("SELECT * FROM users WHERE user_id IN (:ids)", params, this::mapRowToUser)) {
+                usersById.put(user.getId(), user);
+            }
+        }
+
+        List<User> users = new ArrayList<>(usersById.size());
+        for (Long id : idList) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        loadFriendIds(users);
+        return users;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
     private Set<Long> getFriendIds(Long userId) {
         return new HashSet<>(jdbcTemplate.queryForList("SELECT friend_id FROM friends WHERE user_id = ?", Long.class, userId));
     }
 
+    private void loadFriendIds(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, User> usersById = new LinkedHashMap<>();
+        for (User user : users) {
+            user.setFriends(new HashSet<>());
+            usersById.put(user.getId(), user);
+        }
+
+        List<Long> ids = new ArrayList<>(usersById.keySet());
+        for (int from = 0; from < ids.size(); from += FRIENDS_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                    ids.subList(from, Math.min(from + FRIENDS_CHUNK_SIZE, ids.size())));
+            namedJdbcTemplate.query("SELECT user_id, friend_id FROM friends WHERE user_id IN (:ids)", params, rs -> {
+                usersById.get(rs.getLong("user_id")).getFriends().add(rs.getLong("friend_id"));
+            });
+        }
+    }
+
     @Override
     public List<User> findAll() {
         String sql = "SELECT * FROM users";
         List<User> users = jdbcTemplate.query(sql, this::mapRowToUser);
-        for (User user : users) {
-            user.setFriends(getFriendIds(user.getId()));
-        }
+        loadFriendIds(users);
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, afterId == null ? 0 : afterId, limit);
+        loadFriendIds(users);
         return users;
     }
 
     @Override
-    public void addFriend(Long userId, Long friendId) {
-        String sql = "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, userId, friendId);
+    public void exportAll(int fetchSize, Consumer<User> action) {
+        // выгружаем страницами по ключу: соединение берётся на время запроса страницы
+        // и возвращается в пул до того, как строки уйдут медленному клиенту
+        long afterId = 0;
+        List<User> page;
+        do {
+            page = findPage(afterId, fetchSize);
+            page.forEach(action);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == fetchSize);
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        String sql = "INSERT INTO friends (user_id, friend_id) SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM friends WHERE user_id = ? AND friend_id = ?)";
+        try {
+            return jdbcTemplate.update(sql, userId, friendId, userId, friendId) > 0;
+        } catch (DuplicateKeyException exception) {
+            return false;
+        }
     }
 
     @Override
-    public void removeFriend(Long userId, Long friendId) {
+    public boolean removeFriend(Long userId, Long friendId) {
         String sql = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, userId, friendId);
+        return jdbcTemplate.update(sql, userId, friendId) > 0;
     }
 
     @Override
@@ -94,9 +216,7 @@ public class UserDbStorage implements UserStorage {
                 "WHERE f1.user_id = ? AND f2.user_id = ?";
         List<User> commonFriends = jdbcTemplate.query(sql, this::mapRowToUser, userId, otherUserId);
 
-        for (User friend : commonFriends) {
-            friend.setFriends(getFriendIds(friend.getId()));
-        }
+        loadFriendIds(commonFriends);
 
         return commonFriends;
     }
@@ -119,10 +239,25 @@ public class UserDbStorage implements UserStorage {
                 "WHERE f.user_id = ?";
         List<User> friends = jdbcTemplate.query(sql, this::mapRowToUser, userId);
 
-        for (User friend : friends) {
-            friend.setFriends(getFriendIds(friend.getId()));
-        }
+        loadFriendIds(friends);
 
         return friends;
     }
+
+    @Override
+    public List<User> getSuggestedFriends(Long userId, int limit) {
+        String sql = "SELECT f2.friend_id FROM friends f1 " +
+                "JOIN friends f2 ON f2.user_id = f1.friend_id " +
+                "WHERE f1.user_id = ? AND f2.friend_id <> ? " +
+                "AND NOT EXISTS (SELECT 1 FROM friends f3 WHERE f3.user_id = ? AND f3.friend_id = f2.friend_id) " +
+                "GROUP BY f2.friend_id ORDER BY COUNT(*) DESC, f2.friend_id LIMIT ?";
+        List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, userId, userId, userId, limit);
+        return findByIds(ids);
+    }
+
+    @Override
+    public void forEachFriendship(FriendshipConsumer action) {
+        String sql = "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id";
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> action.accept(rs.getLong("user_id"), rs.getLong("friend_id")));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+package ru.yandex.practicum.filmorate.storage.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+@Slf4j
+public class WriteBehindFilmStorage implements FilmStorage, AutoCloseable {
+
+    private final FilmStorage delegate;
+    private final LikeEventLog eventLog;
+    private final Object flushLock = new Object();
+    // изменяются под монитором хранилища, читаются без блокировок
+    private volatile Map<Long, Map<Long, Boolean>> pending = new ConcurrentHashMap<>();
+    private volatile Map<Long, Map<Long, Boolean>> inFlight = Map.of();
+    private volatile long completedFlushes;
+
+    public WriteBehindFilmStorage(FilmStorage delegate, LikeEventLog eventLog) {
+        this.delegate = delegate;
+        this.eventLog = eventLog;
+        recover();
+        if (pendingCount() > 0) {
+            log.info("Recovered {} pending like changes from the event log", pendingCount());
+        }
+    }
+
+    @Override
+    public Film add(Film film) {
+        return delegate.add(film);
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        return delegate.addAll(films);
+    }
+
+    @Override
+    public Film update(Film film) {
+        return delegate.update(film);
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return delegate.findById(id).map(this::overlay);
+    }
+
+    @Override
+    public List<Film> findByIds(Collection<Long> ids) {
+        return overlay(delegate.findByIds(ids));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return overlay(delegate.findAll());
+    }
+
+    @Override
+    public List<Film> findPage(Long afterId, int limit) {
+        return overlay(delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public void exportAll(int fetchSize, Consumer<Film> action) {
+        delegate.exportAll(fetchSize, film -> action.accept(overlay(film)));
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        return change(filmId, userId, true);
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        return change(filmId, userId, false);
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        Boolean state = pendingState(filmId, userId);
+        return state != null ? state : delegate.hasLike(filmId, userId);
+    }
+
+    @Override
+    public Map<Long, Set<Long>> getLikes(Collection<Long> filmIds) {
+        Map<Long, Set<Long>> likesByFilm = delegate.getLikes(filmIds);
+        Map<Long, Map<Long, Boolean>> pendingNow = pending;
+        Map<Long, Map<Long, Boolean>> inFlightNow = inFlight;
+        for (Long filmId : filmIds) {
+            Set<Long> likes = likesByFilm.computeIfAbsent(filmId, id -> new HashSet<>());
+            applyChanges(likes, inFlightNow.get(filmId));
+            applyChanges(likes, pendingNow.get(filmId));
+            if (likes.isEmpty()) {
+                likesByFilm.remove(filmId);
+            }
+        }
+        return likesByFilm;
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer action) {
+        flush();
+        delegate.forEachLike(action);
+    }
+
+    @Override
+    public void applyLikeChanges(Map<Long, Set<Long>> added, Map<Long, Set<Long>> removed) {
+        delegate.applyLikeChanges(added, removed);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return overlay(delegate.getPopularFilms(count));
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        flush();
+        return delegate.reconcileLikeCounts();
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCounts() {
+        // счётчики, в отличие от наборов лайков, не идемпотентны: под flushLock сброс не может
+        // закоммитить изменения между чтением базы и наложением inFlight и посчитать их дважды
+        synchronized (flushLock) {
+            Map<Long, Long> likeCounts = delegate.getLikeCounts();
+            mergeCounts(likeCounts, inFlight);
+            mergeCounts(likeCounts, pending);
+            return likeCounts;
+        }
+    }
+
+    private static void mergeCounts(Map<Long, Long> likeCounts, Map<Long, Map<Long, Boolean>> changes) {
+        changes.forEach((filmId, byUser) -> byUser.values().forEach(liked ->
+                likeCounts.merge(filmId, liked ? 1L : -1L, Long::sum)));
+    }
+
+    @Override
+    public List<Film> getFilmsByGenre(Long genreId) {
+        return overlay(delegate.getFilmsByGenre(genreId));
+    }
+
+    @Override
+    public List<Film> getFilmsByGenrePage(Long genreId, Long afterId, int limit) {
+        return overlay(delegate.getFilmsByGenrePage(genreId, afterId, limit));
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Long, Map<Long, Boolean>> snapshot;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                snapshot = pending;
+                inFlight = snapshot;
+                pending = new ConcurrentHashMap<>();
+                eventLog.rotate();
+            }
+
+            Map<Long, Set<Long>> added = new HashMap<>();
+            Map<Long, Set<Long>> removed = new HashMap<>();
+            snapshot.forEach((filmId, changes) -> changes.forEach((userId, liked) ->
+                    (liked ? added : removed).computeIfAbsent(filmId, id -> new HashSet<>()).add(userId)));
+            try {
+                delegate.applyLikeChanges(added, removed);
+                eventLog.completeFlush();
+            } catch (RuntimeException exception) {
+                log.error("Failed to flush like changes, will retry", exception);
+                synchronized (this) {
+                    snapshot.forEach((filmId, changes) -> {
+                        Map<Long, Boolean> current = pending.computeIfAbsent(filmId, id -> new ConcurrentHashMap<>());
+                        changes.forEach(current::putIfAbsent);
+                    });
+                }
+            } finally {
+                synchronized (this) {
+                    inFlight = Map.of();
+                    completedFlushes++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        eventLog.close();
+    }
+
+    private boolean change(Long filmId, Long userId, boolean liked) {
+        long sequence;
+        while (true) {
+            // запрос к базе идёт вне блокировки; если за это время сброс унёс в базу изменения,
+            // проба могла устареть, и её повторяют
+            long flushes = completedFlushes;
+            Boolean observed = pendingState(filmId, userId);
+            boolean stored = observed != null ? observed : delegate.hasLike(filmId, userId);
+            synchronized (this) {
+                Boolean state = pendingState(filmId, userId);
+                if (state == null && (observed != null || flushes != completedFlushes)) {
+                    continue;
+                }
+                boolean current = state != null ? state : stored;
+                if (current == liked) {
+                    return false;
+                }
+                // номер записи выдаётся под той же блокировкой, что и изменение pending:
+                // порядок в журнале совпадает с порядком изменений, и ротация не разрывает их
+                sequence = eventLog.append(filmId, userId, liked);
+                record(filmId, userId, liked);
+                break;
+            }
+        }
+        eventLog.sync(sequence);
+        return true;
+    }
+
+    private void record(long filmId, long userId, boolean liked) {
+        Map<Long, Boolean> changes = pending.computeIfAbsent(filmId, id -> new ConcurrentHashMap<>());
+        Boolean previous = changes.get(userId);
+        if (previous != null && previous != liked) {
+            // лайк и снятие лайка в одном окне взаимно гасятся
+            changes.remove(userId);
+            if (changes.isEmpty()) {
+                pending.remove(filmId);
+            }
+        } else {
+            changes.put(userId, liked);
+        }
+    }
+
+    /**
+     * Восстанавливает изменения из журнала. Гасить пары здесь нельзя: лайк из недоудалённого
+     * .flushing мог уже попасть в базу, и снятие после него обязано дойти до неё. Поэтому по
+     * каждой паре берётся последнее состояние и сверяется с базой.
+     */
+    private void recover() {
+        Map<Long, Map<Long, Boolean>> latest = new HashMap<>();
+        eventLog.replay((filmId, userId, liked) ->
+                latest.computeIfAbsent(filmId, id -> new HashMap<>()).put(userId, liked));
+        if (latest.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<Long>> stored = delegate.getLikes(latest.keySet());
+        latest.forEach((filmId, changes) -> changes.forEach((userId, liked) -> {
+            if (liked != stored.getOrDefault(filmId, Set.of()).contains(userId)) {
+                pending.computeIfAbsent(filmId, id -> new ConcurrentHashMap<>()).put(userId, liked);
+            }
+        }));
+    }
+
+    private Boolean pendingState(long filmId, long userId) {
+        Map<Long, Boolean> changes = pending.get(filmId);
+        Boolean state = changes == null ? null : changes.get(userId);
+        if (state != null) {
+            return state;
+        }
+        Map<Long, Boolean> flushing = inFlight.get(filmId);
+        return flushing == null ? null : flushing.get(userId);
+    }
+
+    private int pendingCount() {
+        return pending.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Film overlay(Film film) {
+        // pending читается раньше inFlight: при ротации inFlight подменяется первым,
+        // и изменение не теряется между двумя ссылками
+        Map<Long, Boolean> pendingChanges = pending.get(film.getId());
+        applyChanges(film.getLikes(), inFlight.get(film.getId()));
+        applyChanges(film.getLikes(), pendingChanges);
+        return film;
+    }
+
+    private static void applyChanges(Set<Long> likes, Map<Long, Boolean> changes) {
+        if (changes == null) {
+            return;
+        }
+        changes.forEach((userId, liked) -> {
+            if (liked) {
+                likes.add(userId);
+            } else {
+                likes.remove(userId);
+            }
+        });
+    }
+
+    private List<Film> overlay(List<Film> films) {
+        films.forEach(this::overlay);
+        return films;
+    }
+}
@@ -2,23 +2,47 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User add(User user);
 
+    List<User> addAll(List<User> users);
+
     User update(User user);
 
     Optional<User> findById(Long id);
 
+    List<User> findByIds(Collection<Long> ids);
+
+    boolean existsById(Long id);
+
     List<User> findAll();
 
-    void addFriend(Long userId, Long friendId);
+    List<User> findPage(Long afterId, int limit);
+
+    void exportAll(int fetchSize, Consumer<User> action);
 
-    void removeFriend(Long userId, Long friendId);
+    boolean addFriend(Long userId, Long friendId);
+
+    boolean removeFriend(Long userId, Long friendId);
 
     List<User> getCommonFriends(Long userId, Long otherId);
 
     List<User> getFriends(Long userId);
+
+    /**
+     * Друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей.
+     */
+    List<User> getSuggestedFriends(Long userId, int limit);
+
+    void forEachFriendship(FriendshipConsumer action);
+
+    @FunctionalInterface
+    interface FriendshipConsumer {
+        void accept(long userId, long friendId);
+    }
 }
\ No newline at end of file
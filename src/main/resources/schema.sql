@@ -12,9 +12,14 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(200),
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
-    mpa_rating_id INTEGER
+    mpa_rating_id INTEGER,
+    like_count INTEGER NOT NULL DEFAULT 0
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count INTEGER NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS genres (
     genre_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(50) NOT NULL
@@ -47,4 +52,10 @@ CREATE TABLE IF NOT EXISTS friends (
     PRIMARY KEY (user_id, friend_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (friend_id) REFERENCES users(user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_likes_user_film ON likes (user_id, film_id);
+
+CREATE INDEX IF NOT EXISTS idx_friends_friend_user ON friends (friend_id, user_id);
+
+CREATE INDEX IF NOT EXISTS idx_film_genres_genre_film ON film_genres (genre_id, film_id);
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = "filmorate.bulk.chunk-size=1")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class BulkImportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldNotIndexFilmsOfRolledBackImport() throws Exception {
+        String before = mockMvc.perform(get("/films/facets"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/films/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content(film("Rolledback") + "\n" + film("Rolledback too") + "\n{\"name\":"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/films/facets"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(before));
+    }
+
+    @Test
+    void shouldReportTooLongValuesAsFailedItems() throws Exception {
+        mockMvc.perform(post("/films/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content(film("a".repeat(256)) + "\n" + film("Imported")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[0].error").exists())
+                .andExpect(jsonPath("$[1].id").exists());
+
+        mockMvc.perform(post("/users/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"long@example.com\",\"login\":\"" + "l".repeat(51)
+                                + "\",\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[0].error").exists());
+
+        mockMvc.perform(get("/films/search").param("q", "Imported"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Imported"));
+    }
+
+    private static String film(String name) {
+        return "{\"name\":\"" + name + "\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":90,\"mpa\":{\"id\":1}}";
+    }
+}
@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.cache.EntityCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.impl.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class, MpaRatingDbStorage.class})
+class CachingFilmStorageTest {
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userStorage;
+    private final MpaRatingDbStorage mpaRatingStorage;
+
+    private SimpleMeterRegistry registry;
+    private CachingFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        storage = new CachingFilmStorage(filmDbStorage, mpaRatingStorage, new EntityCache<>("films", 2, film -> 1, registry));
+    }
+
+    @Test
+    void testRepeatedReadsAreServedFromCache() {
+        Long filmId = filmDbStorage.add(film("Loaded")).getId();
+
+        Film first = storage.findById(filmId).orElseThrow();
+        first.setName("Changed by caller");
+        Film second = storage.findById(filmId).orElseThrow();
+
+        assertThat(second.getName()).isEqualTo("Loaded");
+        assertThat(gets("miss")).isEqualTo(1.0);
+        assertThat(gets("hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testWritesGoThroughCache() {
+        Long filmId = storage.add(film("Created")).getId();
+        Long userId = createUser("first");
+
+        assertThat(storage.findById(filmId).orElseThrow().getMpa())
+                .isEqualTo(filmDbStorage.findById(filmId).orElseThrow().getMpa());
+
+        assertThat(storage.addLike(filmId, userId)).isTrue();
+        assertThat(storage.findById(filmId).orElseThrow().getLikes()).containsExactly(userId);
+
+        Film update = film("Updated");
+        update.setId(filmId);
+        storage.update(update);
+        Film cached = storage.findById(filmId).orElseThrow();
+        assertThat(cached.getName()).isEqualTo("Updated");
+        assertThat(cached.getLikes()).containsExactly(userId);
+
+        assertThat(storage.removeLike(filmId, userId)).isTrue();
+        assertThat(storage.findById(filmId).orElseThrow().getLikes()).isEmpty();
+        assertThat(gets("miss")).isZero();
+        assertThat(storage.findById(filmId)).isEqualTo(filmDbStorage.findById(filmId));
+    }
+
+    @Test
+    void testLikesAreReadFromStorageOnCacheHit() {
+        Long filmId = filmDbStorage.add(film("Liked")).getId();
+        Long userId = createUser("liker");
+        storage.findById(filmId);
+
+        filmDbStorage.addLike(filmId, userId);
+
+        assertThat(storage.findById(filmId).orElseThrow().getLikes()).containsExactly(userId);
+        assertThat(storage.findByIds(List.of(filmId)).get(0).getLikes()).containsExactly(userId);
+        assertThat(gets("hit")).isEqualTo(2.0);
+    }
+
+    @Test
+    void testCacheIsBoundedByEstimatedWeight() {
+        registry = new SimpleMeterRegistry();
+        storage = new CachingFilmStorage(filmDbStorage, mpaRatingStorage,
+                new EntityCache<>("films", 600, CachingFilmStorage::weigh, registry));
+        Long smallId = filmDbStorage.add(film("Small")).getId();
+        Long heavyId = filmDbStorage.add(film("H".repeat(255))).getId();
+
+        storage.findById(smallId);
+        storage.findById(heavyId);
+        storage.findById(heavyId);
+
+        Film small = filmDbStorage.findById(smallId).orElseThrow();
+        assertThat(CachingFilmStorage.weigh(filmDbStorage.findById(heavyId).orElseThrow())).isGreaterThan(600);
+        assertThat(registry.get("cache.used.bytes").gauge().value()).isEqualTo(CachingFilmStorage.weigh(small));
+        assertThat(gets("miss")).isEqualTo(3.0);
+    }
+
+    @Test
+    void testFindByIdsCombinesCachedAndLoadedFilms() {
+        Long firstId = filmDbStorage.add(film("First")).getId();
+        Long secondId = filmDbStorage.add(film("Second")).getId();
+        storage.findById(secondId);
+
+        List<Film> films = storage.findByIds(List.of(secondId, firstId, -1L));
+
+        assertThat(films).extracting(Film::getName).containsExactly("Second", "First");
+        assertThat(storage.findByIds(List.of(firstId, secondId))).extracting(Film::getId)
+                .containsExactly(firstId, secondId);
+        assertThat(gets("hit")).isEqualTo(3.0);
+    }
+
+    @Test
+    void testLeastRecentlyTouchedFilmIsEvicted() {
+        Long firstId = filmDbStorage.add(film("First")).getId();
+        Long secondId = filmDbStorage.add(film("Second")).getId();
+        Long thirdId = filmDbStorage.add(film("Third")).getId();
+
+        storage.findByIds(List.of(firstId, secondId));
+        storage.findById(secondId);
+        storage.findById(thirdId);
+
+        assertThat(registry.get("cache.evictions").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.size").gauge().value()).isEqualTo(2.0);
+        storage.findById(secondId);
+        assertThat(gets("hit")).isEqualTo(2.0);
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("result", result).counter().count();
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Test movie.");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, null));
+        return film;
+    }
+
+    private Long createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@test.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userStorage.add(user).getId();
+    }
+}
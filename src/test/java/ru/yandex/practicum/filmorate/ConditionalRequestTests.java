@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.MpaRatingService;
+import ru.yandex.practicum.filmorate.storage.StorageConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles(StorageConfiguration.IN_MEMORY_PROFILE)
+class ConditionalRequestTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GenreService genreService;
+
+    @Autowired
+    private MpaRatingService mpaRatingService;
+
+    @Test
+    void shouldAnswerNotModifiedUntilFilmChanges() throws Exception {
+        String user = createUser("etag-film@example.com");
+        String film = mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Film\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\","
+                                + "\"duration\":90,\"mpa\":{\"id\":1}}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().replaceAll("^\\{\"id\":(\\d+).*", "$1");
+
+        String etag = mockMvc.perform(get("/films/" + film))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"film-" + film + "-");
+
+        mockMvc.perform(get("/films/" + film).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/films/" + film + "/like/" + user)).andExpect(status().isOk());
+        String changed = mockMvc.perform(get("/films/" + film).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    void shouldChangeUserETagOnFriendChanges() throws Exception {
+        String user = createUser("etag-user@example.com");
+        String friend = createUser("etag-friend@example.com");
+        String etag = mockMvc.perform(get("/users/" + user))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users/" + user).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(put("/users/" + user + "/friends/" + friend)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/" + user).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForCatalogs() throws Exception {
+        for (String path : new String[]{"/genres", "/genres/1", "/mpa", "/mpa/1"}) {
+            String etag = mockMvc.perform(get(path))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        }
+    }
+
+    @Test
+    void shouldNotMatchETagOfNotFoundAnswerAfterCreation() throws Exception {
+        String next = String.valueOf(Long.parseLong(createUser("etag-before@example.com")) + 1);
+        String etag = mockMvc.perform(get("/users/" + next))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(createUser("etag-created@example.com")).isEqualTo(next);
+        mockMvc.perform(get("/users/" + next).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldChangeCatalogETagsOnReload() throws Exception {
+        String[] paths = {"/genres", "/genres/1", "/mpa", "/mpa/1"};
+        String[] etags = new String[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            etags[i] = mockMvc.perform(get(paths[i])).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        }
+
+        genreService.reload();
+        mpaRatingService.reload();
+        for (int i = 0; i < paths.length; i++) {
+            mockMvc.perform(get(paths[i]).header(HttpHeaders.IF_NONE_MATCH, etags[i]))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private String createUser(String email) throws Exception {
+        return mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"login\":\"login\",\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().replaceAll("^\\{\"id\":(\\d+).*", "$1");
+    }
+}
@@ -0,0 +1,344 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Заполняет схему из schema.sql синтетическими данными: лайки фильмов распределены по степенному закону,
+ * дружба сгруппирована в кластеры, жанры выбираются с перекосом. Одинаковый seed даёт одинаковые данные.
+ */
+public class DatasetGenerator {
+
+    private static final int[] GENRE_WEIGHTS = {25, 30, 10, 12, 8, 15};
+    private static final int FRIEND_CLUSTER_SIZE = 50;
+    private static final double IN_CLUSTER_FRIEND_SHARE = 0.8;
+    private static final double POPULARITY_SKEW = 4.0;
+    private static final LocalDate EPOCH_START = LocalDate.of(1950, 1, 1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SplittableRandom random;
+    private final int batchSize;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this(jdbcTemplate, seed, 10_000);
+    }
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, long seed, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new SplittableRandom(seed);
+        this.batchSize = batchSize;
+    }
+
+    public record Scale(int users, int films, int likesPerUser, int friendsPerUser) {
+        public static Scale of(int users) {
+            return new Scale(users, Math.max(1, users / 10), 20, 15);
+        }
+    }
+
+    public record Result(int users, int films, long filmGenres, long likes, long friends) {
+    }
+
+    public Result generate(Scale scale) {
+        int userBase = maxId("users", "user_id");
+        int filmBase = maxId("films", "film_id");
+        List<Integer> genreIds = jdbcTemplate.queryForList("SELECT genre_id FROM genres ORDER BY genre_id", Integer.class);
+        List<Integer> mpaIds = jdbcTemplate.queryForList(
+                "SELECT mpa_rating_id FROM mpa_ratings ORDER BY mpa_rating_id", Integer.class);
+
+        insertUsers(userBase, scale.users());
+        insertFilms(filmBase, scale.films(), mpaIds);
+        long filmGenres = insertFilmGenres(filmBase, scale.films(), genreIds);
+        long likes = insertLikes(userBase, filmBase, scale);
+        long friends = insertFriends(userBase, scale);
+        restartIdentity("users", "user_id", userBase + scale.users() + 1);
+        restartIdentity("films", "film_id", filmBase + scale.films() + 1);
+        return new Result(scale.users(), scale.films(), filmGenres, likes, friends);
+    }
+
+    private void insertUsers(int base, int count) {
+        int[] birthdays = new int[batchSize];
+        for (int from = 0; from < count; from += batchSize) {
+            int start = from;
+            int size = Math.min(batchSize, count - from);
+            for (int i = 0; i < size; i++) {
+                birthdays[i] = random.nextInt(55 * 365);
+            }
+            executeBatch("INSERT INTO users (user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            int id = base + start + i + 1;
+                            ps.setInt(1, id);
+                            ps.setString(2, "user" + id + "@example.com");
+                            ps.setString(3, "user" + id);
+                            ps.setString(4, "User " + id);
+                            ps.setDate(5, Date.valueOf(EPOCH_START.plusDays(birthdays[i])));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+        }
+    }
+
+    private void insertFilms(int base, int count, List<Integer> mpaIds) {
+        int[] releaseDays = new int[batchSize];
+        int[] durations = new int[batchSize];
+        int[] mpa = new int[batchSize];
+        for (int from = 0; from < count; from += batchSize) {
+            int start = from;
+            int size = Math.min(batchSize, count - from);
+            for (int i = 0; i < size; i++) {
+                releaseDays[i] = random.nextInt(75 * 365);
+                durations[i] = 60 + random.nextInt(121);
+                mpa[i] = mpaIds.get(random.nextInt(mpaIds.size()));
+            }
+            executeBatch("INSERT INTO films (film_id, name, description, release_date, duration, "
+                            + "mpa_rating_id) VALUES (?, ?, ?, ?, ?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            int id = base + start + i + 1;
+                            ps.setInt(1, id);
+                            ps.setString(2, "Film " + id);
+                            ps.setString(3, "Description " + id);
+                            ps.setDate(4, Date.valueOf(EPOCH_START.plusDays(releaseDays[i])));
+                            ps.setInt(5, durations[i]);
+                            ps.setInt(6, mpa[i]);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+        }
+    }
+
+    private long insertFilmGenres(int filmBase, int films, List<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return 0;
+        }
+        int totalWeight = 0;
+        for (int i = 0; i < genreIds.size(); i++) {
+            totalWeight += genreWeight(i);
+        }
+        PairBatch batch = new PairBatch("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)");
+        Set<Integer> chosen = new HashSet<>();
+        for (int film = 1; film <= films; film++) {
+            int genres = 1 + random.nextInt(Math.min(3, genreIds.size()));
+            chosen.clear();
+            while (chosen.size() < genres) {
+                int roll = random.nextInt(totalWeight);
+                int index = 0;
+                while (roll >= genreWeight(index)) {
+                    roll -= genreWeight(index++);
+                }
+                if (chosen.add(genreIds.get(index))) {
+                    batch.add(filmBase + film, genreIds.get(index));
+                }
+            }
+        }
+        return batch.finish();
+    }
+
+    private long insertLikes(int userBase, int filmBase, Scale scale) {
+        int[] filmByRank = shuffledIds(scale.films());
+        int[] likeCounts = new int[scale.films() + 1];
+        PairBatch batch = new PairBatch("INSERT INTO likes (film_id, user_id) VALUES (?, ?)");
+        Set<Integer> liked = new HashSet<>();
+        for (int user = 1; user <= scale.users(); user++) {
+            int likes = Math.min(scale.films(), exponential(scale.likesPerUser()));
+            liked.clear();
+            for (int attempt = 0; liked.size() < likes && attempt < likes * 4; attempt++) {
+                int rank = (int) (scale.films() * Math.pow(random.nextDouble(), POPULARITY_SKEW));
+                int film = filmByRank[rank];
+                if (liked.add(film)) {
+                    likeCounts[film]++;
+                    batch.add(filmBase + film, userBase + user);
+                }
+            }
+        }
+        long inserted = batch.finish();
+
+        PairBatch counts = new PairBatch("UPDATE films SET like_count = ? WHERE film_id = ?");
+        for (int film = 1; film <= scale.films(); film++) {
+            if (likeCounts[film] > 0) {
+                counts.add(likeCounts[film], filmBase + film);
+            }
+        }
+        counts.finish();
+        return inserted;
+    }
+
+    private long insertFriends(int userBase, Scale scale) {
+        PairBatch batch = new PairBatch("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)");
+        Set<Integer> friends = new HashSet<>();
+        for (int user = 1; user <= scale.users(); user++) {
+            int clusterStart = (user - 1) / FRIEND_CLUSTER_SIZE * FRIEND_CLUSTER_SIZE + 1;
+            int clusterSize = Math.min(FRIEND_CLUSTER_SIZE, scale.users() - clusterStart + 1);
+            int count = Math.min(scale.users() - 1, exponential(scale.friendsPerUser()));
+            friends.clear();
+            for (int attempt = 0; friends.size() < count && attempt < count * 4; attempt++) {
+                int friend = random.nextDouble() < IN_CLUSTER_FRIEND_SHARE
+                        ? clusterStart + random.nextInt(clusterSize)
+                        : 1 + random.nextInt(scale.users());
+                if (friend != user && friends.add(friend)) {
+                    batch.add(userBase + user, userBase + friend);
+                }
+            }
+        }
+        return batch.finish();
+    }
+
+    private void executeBatch(String sql, BatchPreparedStatementSetter setter) {
+        jdbcTemplate.execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < setter.getBatchSize(); i++) {
+                    setter.setValues(ps, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                if (autoCommit) {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private int genreWeight(int index) {
+        return index < GENRE_WEIGHTS.length ? GENRE_WEIGHTS[index] : 1;
+    }
+
+    private int exponential(int mean) {
+        return (int) Math.round(-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    private int[] shuffledIds(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private int maxId(String table, String column) {
+        Integer max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table, Integer.class);
+        return max == null ? 0 : max;
+    }
+
+    private void restartIdentity(String table, String column, int next) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + next);
+    }
+
+    private class PairBatch {
+        private final String sql;
+        private final long[] pairs = new long[batchSize];
+        private int size;
+        private long total;
+
+        PairBatch(String sql) {
+            this.sql = sql;
+        }
+
+        void add(int a, int b) {
+            pairs[size] = (long) a << 32 | b;
+            if (++size == batchSize) {
+                flush();
+            }
+        }
+
+        long finish() {
+            flush();
+            return total;
+        }
+
+        private void flush() {
+            if (size == 0) {
+                return;
+            }
+            int count = size;
+            // В порядке ключа вставка в B-дерево индекса идёт по соседним страницам.
+            Arrays.sort(pairs, 0, count);
+            executeBatch(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, (int) (pairs[i] >>> 32));
+                    ps.setInt(2, (int) pairs[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count;
+                }
+            });
+            total += count;
+            size = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(parts[0], parts.length > 1 ? parts[1] : "true");
+        }
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                options.getOrDefault("url", "jdbc:h2:file:./db/filmorate"),
+                options.getOrDefault("username", "sa"),
+                options.getOrDefault("password", "password"), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+        Integer genres = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM genres", Integer.class);
+        if (genres == null || genres == 0) {
+            ResourceDatabasePopulator data = new ResourceDatabasePopulator(new ClassPathResource("data.sql"));
+            data.setSqlScriptEncoding("UTF-8");
+            data.execute(dataSource);
+        }
+
+        int users = Integer.parseInt(options.getOrDefault("users", "100000"));
+        Scale defaults = Scale.of(users);
+        Scale scale = new Scale(users,
+                Integer.parseInt(options.getOrDefault("films", String.valueOf(defaults.films()))),
+                Integer.parseInt(options.getOrDefault("likes-per-user", String.valueOf(defaults.likesPerUser()))),
+                Integer.parseInt(options.getOrDefault("friends-per-user", String.valueOf(defaults.friendsPerUser()))));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "10000"));
+
+        long start = System.nanoTime();
+        Result result = new DatasetGenerator(jdbcTemplate, seed, batchSize).generate(scale);
+        System.out.printf("Сгенерировано за %d с: %s%n", (System.nanoTime() - start) / 1_000_000_000L, result);
+        dataSource.destroy();
+    }
+}
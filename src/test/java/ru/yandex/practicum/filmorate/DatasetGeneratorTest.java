@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class DatasetGeneratorTest {
+
+    private static final DatasetGenerator.Scale SCALE = new DatasetGenerator.Scale(1_000, 200, 8, 6);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldWriteRequestedScale() {
+        DatasetGenerator.Result result = new DatasetGenerator(jdbcTemplate, 42, 700).generate(SCALE);
+
+        assertThat(count("users")).isEqualTo(1_000);
+        assertThat(count("films")).isEqualTo(200);
+        assertThat(count("film_genres")).isEqualTo(result.filmGenres()).isBetween(200L, 600L);
+        assertThat(count("likes")).isEqualTo(result.likes()).isGreaterThan(5_000L);
+        assertThat(count("friends")).isEqualTo(result.friends()).isGreaterThan(4_000L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films f WHERE f.like_count <> "
+                + "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)", Long.class)).isZero();
+    }
+
+    @Test
+    void shouldSkewLikesTowardsFewFilms() {
+        new DatasetGenerator(jdbcTemplate, 42).generate(SCALE);
+
+        List<Long> counts = jdbcTemplate.queryForList("SELECT like_count FROM films ORDER BY like_count DESC", Long.class);
+        long total = counts.stream().mapToLong(Long::longValue).sum();
+        long topTenPercent = counts.stream().limit(counts.size() / 10).mapToLong(Long::longValue).sum();
+        assertThat(topTenPercent * 3).isGreaterThan(total);
+    }
+
+    @Test
+    void shouldKeepMostFriendshipsInsideClusters() {
+        new DatasetGenerator(jdbcTemplate, 42).generate(SCALE);
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friends", Long.class);
+        Long inCluster = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM friends WHERE (user_id - 1) / 50 = (friend_id - 1) / 50", Long.class);
+        assertThat(inCluster * 10).isGreaterThan(total * 7);
+    }
+
+    @Test
+    void shouldProduceSameDataForSameSeed() {
+        new DatasetGenerator(jdbcTemplate, 7).generate(SCALE);
+        List<String> first = snapshot();
+
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+        new DatasetGenerator(jdbcTemplate, 7).generate(SCALE);
+
+        assertThat(snapshot()).isEqualTo(first);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private List<String> snapshot() {
+        List<String> rows = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT CONCAT(film_id, ':', user_id) FROM likes ORDER BY film_id, user_id", String.class));
+        rows.addAll(jdbcTemplate.queryForList(
+                "SELECT CONCAT(user_id, '>', friend_id) FROM friends ORDER BY user_id, friend_id", String.class));
+        return rows;
+    }
+}
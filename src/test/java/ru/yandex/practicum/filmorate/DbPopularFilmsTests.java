@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class DbPopularFilmsTests extends PopularFilmsTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected void verifyStoredLikeCount(long filmId, long expected) throws Exception {
+        awaitLikeCount(jdbcTemplate, filmId, expected);
+    }
+}
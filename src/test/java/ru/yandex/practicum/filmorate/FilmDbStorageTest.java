@@ -6,15 +6,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
 import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -25,11 +28,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmDbStorage.class, UserDbStorage.class})
+@Import({FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class})
 @Sql(scripts = {"classpath:schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class FilmDbStorageTest {
     private final FilmDbStorage filmStorage;
     private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     void testAddFilm() {
@@ -234,4 +238,225 @@ class FilmDbStorageTest {
         assertThat(dramaFilms).hasSize(1);
         assertThat(dramaFilms.get(0).getId()).isEqualTo(savedFilm2.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindAllHydratesGenresAndLikes() {
+        User user = new User();
+        user.setEmail("test@test.ru");
+        user.setLogin("test_login");
+        user.setName("Test Name");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        User savedUser = userStorage.add(user);
+
+        Film film1 = new Film();
+        film1.setName("First Film");
+        film1.setDescription("First movie.");
+        film1.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film1.setDuration(120);
+        film1.setMpa(new MpaRating(1L, "MPA Rating"));
+        film1.setGenres(List.of(new Genre(1L, "Action"), new Genre(2L, "Drama")));
+        Film savedFilm1 = filmStorage.add(film1);
+
+        Film film2 = new Film();
+        film2.setName("Second Film");
+        film2.setDescription("Second movie.");
+        film2.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film2.setDuration(150);
+        film2.setMpa(new MpaRating(2L, "Another MPA Rating"));
+        Film savedFilm2 = filmStorage.add(film2);
+
+        filmStorage.addLike(savedFilm1.getId(), savedUser.getId());
+
+        List<Film> allFilms = filmStorage.findAll();
+        Film found1 = allFilms.stream().filter(f -> f.getId().equals(savedFilm1.getId())).findFirst().orElseThrow();
+        Film found2 = allFilms.stream().filter(f -> f.getId().equals(savedFilm2.getId())).findFirst().orElseThrow();
+        assertThat(found1.getGenres()).extracting(Genre::getId).containsExactly(1L, 2L);
+        assertThat(found1.getLikes()).containsExactly(savedUser.getId());
+        assertThat(found2.getGenres()).isEmpty();
+        assertThat(found2.getLikes()).isEmpty();
+    }
+
+    @Test
+    void testFindPage() {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Movie " + i);
+            film.setReleaseDate(LocalDate.of(2020, 1, i));
+            film.setDuration(100 + i);
+            film.setMpa(new MpaRating(1L, "MPA Rating"));
+            film.setGenres(List.of(new Genre(1L, "Action")));
+            filmStorage.add(film);
+        }
+
+        List<Film> firstPage = filmStorage.findPage(null, 2);
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getGenres()).extracting(Genre::getId).containsExactly(1L);
+
+        List<Film> secondPage = filmStorage.findPage(firstPage.get(1).getId(), 2);
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).getName()).isEqualTo("Film 3");
+
+        List<Film> genrePage = filmStorage.getFilmsByGenrePage(1L, firstPage.get(0).getId(), 10);
+        assertThat(genrePage).extracting(Film::getName).containsExactly("Film 2", "Film 3");
+    }
+
+    @Test
+    void testExportAll() {
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Movie " + i);
+            film.setReleaseDate(LocalDate.of(2020, 1, i));
+            film.setDuration(100 + i);
+            film.setMpa(new MpaRating(1L, "MPA Rating"));
+            film.setGenres(List.of(new Genre((long) i, "Genre")));
+            filmStorage.add(film);
+        }
+
+        List<Film> exported = new ArrayList<>();
+        filmStorage.exportAll(2, exported::add);
+        assertThat(exported).extracting(Film::getName).containsExactly("Film 1", "Film 2", "Film 3");
+        assertThat(exported.get(2).getGenres()).extracting(Genre::getId).containsExactly(3L);
+    }
+
+    @Test
+    void testReconcileLikeCounts() {
+        User user = new User();
+        user.setEmail("test@test.ru");
+        user.setLogin("test_login");
+        user.setName("Test Name");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        User savedUser = userStorage.add(user);
+
+        Film film1 = new Film();
+        film1.setName("First Film");
+        film1.setDescription("First movie.");
+        film1.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film1.setDuration(120);
+        film1.setMpa(new MpaRating(1L, "MPA Rating"));
+        Film savedFilm1 = filmStorage.add(film1);
+
+        Film film2 = new Film();
+        film2.setName("Second Film");
+        film2.setDescription("Second movie.");
+        film2.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film2.setDuration(150);
+        film2.setMpa(new MpaRating(2L, "Another MPA Rating"));
+        Film savedFilm2 = filmStorage.add(film2);
+
+        filmStorage.addLike(savedFilm2.getId(), savedUser.getId());
+        assertThat(filmStorage.reconcileLikeCounts()).isZero();
+        assertThat(filmStorage.getPopularFilms(1)).extracting(Film::getId).containsExactly(savedFilm2.getId());
+
+        jdbcTemplate.update("UPDATE films SET like_count = 5 WHERE film_id = ?", savedFilm1.getId());
+        assertThat(filmStorage.getPopularFilms(1)).extracting(Film::getId).containsExactly(savedFilm1.getId());
+
+        assertThat(filmStorage.reconcileLikeCounts()).isEqualTo(1);
+        assertThat(filmStorage.getPopularFilms(1)).extracting(Film::getId).containsExactly(savedFilm2.getId());
+    }
+
+    @Test
+    void testFindByIdsKeepsRequestedOrder() {
+        Film film1 = new Film();
+        film1.setName("First Film");
+        film1.setDescription("First movie.");
+        film1.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film1.setDuration(120);
+        film1.setMpa(new MpaRating(1L, "MPA Rating"));
+        Film savedFilm1 = filmStorage.add(film1);
+
+        Film film2 = new Film();
+        film2.setName("Second Film");
+        film2.setDescription("Second movie.");
+        film2.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film2.setDuration(150);
+        film2.setMpa(new MpaRating(2L, "Another MPA Rating"));
+        film2.setGenres(List.of(new Genre(2L, "Drama")));
+        Film savedFilm2 = filmStorage.add(film2);
+
+        List<Film> films = filmStorage.findByIds(List.of(savedFilm2.getId(), -1L, savedFilm1.getId()));
+        assertThat(films).extracting(Film::getId).containsExactly(savedFilm2.getId(), savedFilm1.getId());
+        assertThat(films.get(0).getGenres()).extracting(Genre::getId).containsExactly(2L);
+        assertThat(filmStorage.getLikeCounts()).containsEntry(savedFilm1.getId(), 0L);
+    }
+
+    @Test
+    void testUpdateFilmGenresDiff() {
+        Film film = new Film();
+        film.setName("Original Title");
+        film.setDescription("Original Description");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, "MPA Rating"));
+        film.setGenres(List.of(new Genre(1L, null), new Genre(2L, null), new Genre(1L, "Комедия")));
+
+        Film savedFilm = filmStorage.add(film);
+        assertThat(savedFilm.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+
+        savedFilm.setGenres(List.of(new Genre(2L, null), new Genre(3L, null)));
+        filmStorage.update(savedFilm);
+
+        Film reloaded = filmStorage.findById(savedFilm.getId()).orElseThrow();
+        assertThat(reloaded.getGenres()).extracting(Genre::getId).containsExactly(2L, 3L);
+
+        reloaded.setGenres(null);
+        filmStorage.update(reloaded);
+        assertThat(filmStorage.findById(savedFilm.getId()).orElseThrow().getGenres()).isEmpty();
+    }
+
+    @Test
+    void testAddAllFilms() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Movie " + i);
+            film.setReleaseDate(LocalDate.of(2020, 1, i));
+            film.setDuration(100 + i);
+            film.setMpa(new MpaRating(1L, "MPA Rating"));
+            film.setGenres(List.of(new Genre((long) i, null)));
+            films.add(film);
+        }
+
+        List<Film> saved = filmStorage.addAll(films);
+        assertThat(saved).extracting(Film::getId).doesNotContainNull().doesNotHaveDuplicates();
+
+        Film third = filmStorage.findById(saved.get(2).getId()).orElseThrow();
+        assertThat(third.getName()).isEqualTo("Film 3");
+        assertThat(third.getGenres()).extracting(Genre::getId).containsExactly(3L);
+    }
+
+    @Test
+    void testDuplicateLikeIsIgnored() {
+        User user = new User();
+        user.setEmail("test@test.ru");
+        user.setLogin("test_login");
+        user.setName("Test Name");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        User savedUser = userStorage.add(user);
+
+        Film film = new Film();
+        film.setName("Test Film");
+        film.setDescription("Test movie.");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, "MPA Rating"));
+        Film savedFilm = filmStorage.add(film);
+
+        assertThat(filmStorage.existsById(savedFilm.getId())).isTrue();
+        assertThat(filmStorage.existsById(-1L)).isFalse();
+
+        assertThat(filmStorage.addLike(savedFilm.getId(), savedUser.getId())).isTrue();
+        assertThat(filmStorage.addLike(savedFilm.getId(), savedUser.getId())).isFalse();
+        assertThat(filmStorage.reconcileLikeCounts()).isZero();
+        assertThat(filmStorage.findById(savedFilm.getId()).orElseThrow().getLikes()).containsExactly(savedUser.getId());
+
+        List<List<Long>> likes = new ArrayList<>();
+        filmStorage.forEachLike((filmId, userId) -> likes.add(List.of(filmId, userId)));
+        assertThat(likes).containsExactly(List.of(savedFilm.getId(), savedUser.getId()));
+
+        assertThat(filmStorage.removeLike(savedFilm.getId(), savedUser.getId())).isTrue();
+        assertThat(filmStorage.removeLike(savedFilm.getId(), savedUser.getId())).isFalse();
+    }
+}
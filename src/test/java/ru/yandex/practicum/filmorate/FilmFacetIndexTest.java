@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmFacetIndexTest {
+
+    private FilmFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmFacetIndex();
+        index.reload(action -> {
+            action.accept(film(1, 1, 1999, 90, 1L, 2L));
+            action.accept(film(2, 2, 2005, 120, 2L));
+            action.accept(film(3, 1, 2005, 150, 3L));
+            action.accept(film(4, 3, 2020, 100));
+        });
+    }
+
+    @Test
+    void shouldCombineFacetsWithAndAcrossAndOrWithin() {
+        assertTrue(index.isLoaded());
+        assertEquals(List.of(1L, 2L), index.filter(filter(Set.of(2L), Set.of(), null, null, null), null, 10));
+        assertEquals(List.of(1L, 3L), index.filter(filter(Set.of(), Set.of(1L), null, null, null), null, 10));
+        assertEquals(List.of(2L, 3L), index.filter(filter(Set.of(2L, 3L), Set.of(), 2000, null, null), null, 10));
+        assertEquals(List.of(3L), index.filter(filter(Set.of(), Set.of(), 2000, 2010, 130), null, 10));
+        assertEquals(List.of(3L), index.filter(filter(Set.of(), Set.of(1L, 2L), null, null, 100), 2L, 1));
+    }
+
+    @Test
+    void shouldCountEachFacetWithoutItsOwnFilter() {
+        FilmFacets facets = index.count(filter(Set.of(2L), Set.of(), 2000, null, null));
+        assertEquals(1, facets.getTotal());
+        assertEquals(Map.of(2L, 1, 3L, 1), facets.getGenres());
+        assertEquals(Map.of(2L, 1), facets.getMpa());
+        assertEquals(Map.of(1999, 1, 2005, 1), facets.getYears());
+    }
+
+    @Test
+    void shouldReindexUpdatedFilms() {
+        index.put(film(4, 1, 2021, 100, 2L));
+        assertEquals(List.of(1L, 3L, 4L), index.filter(filter(Set.of(), Set.of(1L), null, null, null), null, 10));
+        assertEquals(List.of(), index.filter(filter(Set.of(), Set.of(), 2020, 2020, null), null, 10));
+        assertEquals(Map.of(1L, 1, 2L, 3, 3L, 1), index.count(filter(Set.of(), Set.of(), null, null, null)).getGenres());
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileReloadReadsStorage() {
+        index.reload(action -> {
+            action.accept(film(1, 1, 1999, 90, 1L, 2L));
+            // пока идёт чтение, уже прочитанный фильм 1 сменил рейтинг, а фильм 5 добавили
+            index.put(film(1, 2, 1999, 90, 1L, 2L));
+            index.put(film(5, 1, 2010, 100));
+            action.accept(film(2, 2, 2005, 120, 2L));
+        });
+        assertEquals(List.of(5L), index.filter(filter(Set.of(), Set.of(1L), null, null, null), null, 10));
+        assertEquals(List.of(1L, 2L), index.filter(filter(Set.of(), Set.of(2L), null, null, null), null, 10));
+    }
+
+    private static FilmFilter filter(Set<Long> genres, Set<Long> mpa, Integer yearFrom, Integer yearTo,
+                                     Integer minDuration) {
+        return new FilmFilter(genres, mpa, yearFrom, yearTo, minDuration);
+    }
+
+    private static Film film(long id, long mpa, int year, int duration, Long... genres) {
+        Film film = new Film();
+        film.setId(id);
+        film.setMpa(new MpaRating(mpa, null));
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(duration);
+        film.setGenres(Arrays.stream(genres).map(genreId -> new Genre(genreId, null)).toList());
+        return film;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmSearchIndexTest {
+
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmSearchIndex();
+        index.reload(action -> {
+            action.accept(film(1, "Ёжик в тумане", "Мультфильм о ёжике и медвежонке"));
+            action.accept(film(2, "Тайна третьей планеты", "Алиса и ёжик-космонавт"));
+            action.accept(film(3, "Amélie", "Paris, café"));
+            action.accept(film(4, "Мой друг Иван Лапшин", "Ежедневная жизнь"));
+        });
+    }
+
+    @Test
+    void shouldMatchPrefixesIgnoringCaseAndDiacritics() {
+        assertTrue(index.isLoaded());
+        assertEquals(List.of(1L, 2L), index.search("ЕЖИК", 0, 10));
+        assertEquals(List.of(1L, 2L, 4L), index.search("еж", 0, 10));
+        assertEquals(List.of(3L), index.search("amelie cafe", 0, 10));
+        assertEquals(List.of(4L), index.search("мой", 0, 10));
+        assertEquals(List.of(), index.search("мои", 0, 10));
+        assertEquals(List.of(), index.search("  ,. ", 0, 10));
+    }
+
+    @Test
+    void shouldRankNameMatchesFirstAndPaginate() {
+        assertEquals(List.of(1L, 2L, 4L), index.search("еж", 0, 10));
+        assertEquals(List.of(2L), index.search("еж", 1, 1));
+        assertEquals(List.of(), index.search("еж", 3, 10));
+    }
+
+    @Test
+    void shouldReindexUpdatedFilms() {
+        index.put(film(1, "Тишина", "Без ежей"));
+        assertEquals(List.of(2L), index.search("ёжи", 0, 10));
+        assertEquals(List.of(1L, 4L), index.search("ЕЖЕ", 0, 10));
+        assertEquals(List.of(1L), index.search("тиш", 0, 10));
+        assertEquals(List.of(), index.search("туман", 0, 10));
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileReloadReadsStorage() {
+        index.reload(action -> {
+            action.accept(film(1, "Ёжик в тумане", "Мультфильм о ёжике и медвежонке"));
+            // пока идёт чтение, уже прочитанный фильм 1 переименовали, а фильм 5 добавили
+            index.put(film(1, "Тишина", "Без ежей"));
+            index.put(film(5, "Туманность Андромеды", "Фантастика"));
+            action.accept(film(2, "Тайна третьей планеты", "Алиса и ёжик-космонавт"));
+        });
+        assertEquals(List.of(), index.search("ёжик в тумане", 0, 10));
+        assertEquals(List.of(1L), index.search("тишина", 0, 10));
+        assertEquals(List.of(5L), index.search("туман", 0, 10));
+    }
+
+    private static Film film(long id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
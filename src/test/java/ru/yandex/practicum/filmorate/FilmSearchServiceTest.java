@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmSearchServiceTest {
+
+    @Test
+    void shouldNotScanStorageOnRequestsBeforeStartupLoad() {
+        AtomicInteger scans = new AtomicInteger();
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(null, null) {
+            @Override
+            public void exportAll(int fetchSize, Consumer<Film> action) {
+                scans.incrementAndGet();
+                super.exportAll(fetchSize, action);
+            }
+        };
+        FilmSearchService service = new FilmSearchService(storage, new FilmSearchIndex(), new FilmFacetIndex(), 500);
+
+        assertThrows(ServiceUnavailableException.class, () -> service.search("ёжик", 0, 10));
+        assertEquals(0, scans.get());
+
+        service.reloadSearchIndex();
+        assertEquals(1, scans.get());
+        assertTrue(service.search("ёжик", 0, 10).isEmpty());
+
+        FilmFilter filter = new FilmFilter(Set.of(), Set.of(), null, null, null);
+        assertThrows(ServiceUnavailableException.class, () -> service.filter(filter, null, 10));
+        assertThrows(ServiceUnavailableException.class, () -> service.getFacets(filter));
+        assertEquals(1, scans.get());
+
+        service.reloadFacetIndex();
+        assertEquals(2, scans.get());
+        assertEquals(0, service.getFacets(filter).getTotal());
+    }
+}
@@ -50,6 +50,19 @@ public class FilmTest {
         assertTrue(violations.isEmpty(), "Правильная дата выпуска не должна приводить к нарушениям.");
     }
 
+    @Test
+    void shouldFailWhenNameLongerThan255() {
+        Film film = new Film();
+        film.setName("a".repeat(256));
+        film.setDescription("Test Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, "G"));
+
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        assertFalse(violations.isEmpty(), "Название длиннее 255 символов должно нарушать правила.");
+    }
+
     @Test
     void shouldFailWhenNameIsBlank() {
         Film film = new Film();
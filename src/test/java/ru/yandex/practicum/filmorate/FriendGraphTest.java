@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendGraphTest {
+
+    private FriendGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FriendGraph();
+        graph.reload(action -> {
+            action.accept(1, 3);
+            action.accept(1, 4);
+            action.accept(1, 5);
+            action.accept(2, 4);
+            action.accept(2, 5);
+        });
+    }
+
+    @Test
+    void shouldIntersectFriendSets() {
+        assertTrue(graph.isLoaded());
+        assertEquals(List.of(4L, 5L), graph.commonFriends(1, 2));
+        assertEquals(2, graph.countCommonFriends(1, 2));
+    }
+
+    @Test
+    void shouldFollowFriendChanges() {
+        graph.add(2, 3);
+        graph.remove(1, 5);
+        assertEquals(List.of(3L, 4L), graph.commonFriends(1, 2));
+        assertEquals(2, graph.countCommonFriends(2, 1));
+    }
+
+    @Test
+    void shouldTreatUnknownUsersAsFriendless() {
+        graph.add(1_000_000, 4);
+        assertEquals(1, graph.countCommonFriends(1, 1_000_000));
+        assertEquals(List.of(), graph.commonFriends(1, 42));
+        graph.remove(42, 1);
+        assertEquals(0, graph.countCommonFriends(42, 1_000_000));
+    }
+
+    @Test
+    void shouldSuggestFriendsOfFriendsByMutualCount() {
+        graph.add(3, 6);
+        graph.add(4, 6);
+        graph.add(4, 7);
+        graph.add(4, 1);
+        graph.add(5, 2);
+        assertEquals(List.of(6L, 2L, 7L), graph.suggest(1, 10, 100));
+        assertEquals(List.of(6L), graph.suggest(1, 1, 100));
+    }
+
+    @Test
+    void shouldCapTraversalFanOut() {
+        graph.add(3, 6);
+        graph.add(4, 7);
+        graph.add(5, 8);
+        assertEquals(List.of(6L), graph.suggest(1, 10, 1));
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileReloadReadsStorage() {
+        graph.reload(action -> {
+            action.accept(1, 3);
+            action.accept(1, 4);
+            // пока идёт чтение, пользователь 2 добавил друга 3 и удалил друга 4, уже прочитанного
+            action.accept(2, 4);
+            graph.add(2, 3);
+            graph.remove(2, 4);
+        });
+        assertEquals(List.of(3L), graph.commonFriends(1, 2));
+    }
+}
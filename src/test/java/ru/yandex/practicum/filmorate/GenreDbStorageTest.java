@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
 
@@ -20,6 +21,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 @Import(GenreDbStorage.class)
 class GenreDbStorageTest {
     private final GenreDbStorage genreStorage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     void testFindAllGenres() {
@@ -35,4 +37,25 @@ class GenreDbStorageTest {
                 .isPresent()
                 .hasValueSatisfying(Genre -> assertThat(Genre).hasFieldOrPropertyWithValue("name", "Комедия"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindUnknownGenre() {
+        assertThat(genreStorage.findById(100)).isEmpty();
+        assertThat(genreStorage.findById(-1)).isEmpty();
+    }
+
+    @Test
+    void testReloadPicksUpNewGenres() {
+        jdbcTemplate.update("INSERT INTO genres (genre_id, name) VALUES (7, 'Вестерн')");
+        assertThat(genreStorage.findById(7)).isEmpty();
+
+        genreStorage.reload();
+        assertThat(genreStorage.findById(7))
+                .isPresent()
+                .hasValueSatisfying(Genre -> assertThat(Genre).hasFieldOrPropertyWithValue("name", "Вестерн"));
+        assertThat(genreStorage.findAll()).hasSize(7);
+
+        jdbcTemplate.update("DELETE FROM genres WHERE genre_id = 7");
+        genreStorage.reload();
+    }
+}
@@ -0,0 +1,152 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryFilmStorageTest {
+
+    private static final List<Genre> GENRES = List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"));
+    private static final List<MpaRating> RATINGS = List.of(new MpaRating(1L, "G"), new MpaRating(2L, "PG"));
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage(new GenreStorage() {
+            @Override
+            public List<Genre> findAll() {
+                return GENRES;
+            }
+
+            @Override
+            public Optional<Genre> findById(int id) {
+                return GENRES.stream().filter(genre -> genre.getId() == id).findFirst();
+            }
+
+            @Override
+            public void reload() {
+            }
+        }, new MpaRatingStorage() {
+            @Override
+            public List<MpaRating> findAll() {
+                return RATINGS;
+            }
+
+            @Override
+            public Optional<MpaRating> findById(Long id) {
+                return RATINGS.stream().filter(rating -> rating.getId().equals(id)).findFirst();
+            }
+
+            @Override
+            public void reload() {
+            }
+        });
+    }
+
+    @Test
+    void shouldAddAndFindFilmWithResolvedNames() {
+        Film saved = storage.add(film("Film", 1L, 2L, 1L));
+
+        Film found = storage.findById(saved.getId()).orElseThrow();
+        assertEquals(1L, found.getId());
+        assertEquals("G", found.getMpa().getName());
+        assertEquals(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")), found.getGenres());
+        assertTrue(storage.existsById(1L));
+        assertFalse(storage.existsById(2L));
+        assertTrue(storage.findById(0L).isEmpty());
+    }
+
+    @Test
+    void shouldUpdateGenreIndexOnUpdate() {
+        Film saved = storage.add(film("Film", 1L, 1L));
+        storage.add(film("Other", 1L, 2L));
+
+        saved.setGenres(List.of(new Genre(2L, null)));
+        storage.update(saved);
+
+        assertTrue(storage.getFilmsByGenre(1L).isEmpty());
+        assertEquals(List.of(1L, 2L), storage.getFilmsByGenre(2L).stream().map(Film::getId).toList());
+        assertEquals(List.of(2L), storage.getFilmsByGenrePage(2L, 1L, 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldPageFilmsByKey() {
+        storage.addAll(new ArrayList<>(List.of(film("A", 1L), film("B", 1L), film("C", 1L))));
+
+        assertEquals(List.of(1L, 2L), storage.findPage(0L, 2).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), storage.findPage(2L, 2).stream().map(Film::getId).toList());
+        assertTrue(storage.findPage(3L, 2).isEmpty());
+
+        List<Long> exported = new ArrayList<>();
+        storage.exportAll(2, film -> exported.add(film.getId()));
+        assertEquals(List.of(1L, 2L, 3L), exported);
+    }
+
+    @Test
+    void shouldTrackLikesAndRankPopularFilms() {
+        storage.addAll(new ArrayList<>(List.of(film("A", 1L), film("B", 1L), film("C", 1L))));
+
+        assertTrue(storage.addLike(2L, 10L));
+        assertFalse(storage.addLike(2L, 10L));
+        storage.addLike(2L, 11L);
+        storage.addLike(3L, 10L);
+        assertTrue(storage.removeLike(3L, 10L));
+        assertFalse(storage.removeLike(3L, 10L));
+        storage.applyLikeChanges(Map.of(1L, Set.of(12L)), Map.of(2L, Set.of(11L)));
+
+        assertTrue(storage.hasLike(2L, 10L));
+        assertEquals(Set.of(10L), storage.findById(2L).orElseThrow().getLikes());
+        assertEquals(Map.of(1L, 1L, 2L, 1L, 3L, 0L), storage.getLikeCounts());
+        assertEquals(List.of(1L, 2L), storage.getPopularFilms(2).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldKeepLikesConsistentUnderConcurrentWriters() throws InterruptedException {
+        storage.add(film("A", 1L));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int user = 1; user <= 1000; user++) {
+            long userId = user;
+            executor.submit(() -> {
+                storage.addLike(1L, userId);
+                storage.findById(1L);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, storage.findById(1L).orElseThrow().getLikes().size());
+    }
+
+    private Film film(String name, Long mpaId, Long... genreIds) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new MpaRating(mpaId, null));
+        List<Genre> genres = new ArrayList<>();
+        for (Long genreId : genreIds) {
+            genres.add(new Genre(genreId, null));
+        }
+        film.setGenres(genres);
+        return film;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.storage.StorageConfiguration;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles(StorageConfiguration.IN_MEMORY_PROFILE)
+class InMemoryPopularFilmsTests extends PopularFilmsTests {
+}
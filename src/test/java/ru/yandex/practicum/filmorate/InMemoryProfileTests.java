@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.storage.StorageConfiguration;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = FilmorateApplication.class)
+@ActiveProfiles(StorageConfiguration.IN_MEMORY_PROFILE)
+class InMemoryProfileTests {
+
+    @Autowired
+    @Qualifier("filmStorage")
+    private FilmStorage filmStorage;
+
+    @Autowired
+    @Qualifier("userStorage")
+    private UserStorage userStorage;
+
+    @Test
+    void shouldWireInMemoryStorages() {
+        assertThat(filmStorage).isInstanceOf(InMemoryFilmStorage.class);
+        assertThat(userStorage).isInstanceOf(InMemoryUserStorage.class);
+    }
+}
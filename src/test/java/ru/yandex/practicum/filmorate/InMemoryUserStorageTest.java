@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryUserStorageTest {
+
+    private InMemoryUserStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryUserStorage();
+        storage.addAll(new ArrayList<>(List.of(user("a"), user("b"), user("c"), user("d"))));
+    }
+
+    @Test
+    void shouldAssignSequentialIdsAndUpdate() {
+        User added = storage.add(user("e"));
+        assertEquals(5L, added.getId());
+
+        added.setName("Новое имя");
+        storage.update(added);
+
+        assertEquals("Новое имя", storage.findById(5L).orElseThrow().getName());
+        assertTrue(storage.findById(6L).isEmpty());
+        assertEquals(List.of(4L, 5L), storage.findPage(3L, 10).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void shouldAddFriendsOneWayAndIdempotently() {
+        assertTrue(storage.addFriend(1L, 2L));
+        assertFalse(storage.addFriend(1L, 2L));
+        assertFalse(storage.addFriend(1L, 99L));
+
+        assertEquals(Set.of(2L), storage.findById(1L).orElseThrow().getFriends());
+        assertTrue(storage.getFriends(2L).isEmpty());
+
+        assertTrue(storage.removeFriend(1L, 2L));
+        assertFalse(storage.removeFriend(1L, 2L));
+        assertTrue(storage.getFriends(1L).isEmpty());
+    }
+
+    @Test
+    void shouldIntersectFriendSets() {
+        storage.addFriend(1L, 3L);
+        storage.addFriend(1L, 4L);
+        storage.addFriend(2L, 4L);
+        storage.addFriend(2L, 3L);
+        storage.addFriend(2L, 1L);
+
+        assertEquals(List.of(3L, 4L), storage.getCommonFriends(1L, 2L).stream().map(User::getId).toList());
+        assertEquals(List.of(1L, 3L, 4L), storage.getFriends(2L).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void shouldSuggestFriendsOfFriendsByMutualCount() {
+        storage.add(user("e"));
+        storage.addFriend(1L, 2L);
+        storage.addFriend(1L, 3L);
+        storage.addFriend(2L, 3L);
+        storage.addFriend(2L, 4L);
+        storage.addFriend(2L, 5L);
+        storage.addFriend(3L, 5L);
+        storage.addFriend(3L, 1L);
+
+        assertEquals(List.of(5L, 4L), storage.getSuggestedFriends(1L, 10).stream().map(User::getId).toList());
+        assertEquals(List.of(5L), storage.getSuggestedFriends(1L, 1).stream().map(User::getId).toList());
+    }
+
+    private User user(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikeMatrixTest {
+
+    private LikeMatrix matrix;
+
+    @BeforeEach
+    void setUp() {
+        matrix = new LikeMatrix();
+        matrix.reload(action -> {
+            action.accept(1, 1);
+            action.accept(2, 1);
+            action.accept(1, 2);
+            action.accept(2, 2);
+            action.accept(3, 2);
+            action.accept(1, 3);
+            action.accept(4, 3);
+            action.accept(5, 3);
+        });
+    }
+
+    @Test
+    void shouldRecommendFilmsOfMostSimilarUsers() {
+        assertTrue(matrix.isLoaded());
+        // пользователь 2 похож на 1 сильнее (2/3), чем пользователь 3 (1/4)
+        assertEquals(List.of(3L, 4L, 5L), matrix.recommend(1, 10, 10, 100));
+        assertEquals(List.of(3L), matrix.recommend(1, 1, 10, 100));
+        assertEquals(List.of(3L), matrix.recommend(1, 10, 1, 100));
+    }
+
+    @Test
+    void shouldExcludeAlreadyLikedFilms() {
+        matrix.add(3, 1);
+        assertEquals(List.of(4L, 5L), matrix.recommend(1, 10, 10, 100));
+    }
+
+    @Test
+    void shouldFollowLikeChanges() {
+        matrix.remove(3, 2);
+        assertEquals(List.of(4L, 5L), matrix.recommend(1, 10, 10, 100));
+        assertEquals(List.of(), matrix.recommend(42, 10, 10, 100));
+    }
+
+    @Test
+    void shouldTakeNoMoreCandidatesThanCapFromPopularFilm() {
+        matrix.reload(action -> {
+            // фильм 10 лайкнули пользователи 1..6, каждый из них лайкнул ещё и свой фильм 20 + id
+            for (int userId = 1; userId <= 6; userId++) {
+                action.accept(10, userId);
+                action.accept(20 + userId, userId);
+            }
+        });
+        assertEquals(List.of(22L, 23L), matrix.recommend(1, 10, 10, 2));
+        assertEquals(List.of(22L, 23L, 24L, 25L, 26L), matrix.recommend(1, 10, 10, 100));
+    }
+
+    @Test
+    void shouldKeepLikeChangesMadeWhileReloadReadsStorage() {
+        matrix.reload(action -> {
+            action.accept(1, 1);
+            action.accept(1, 2);
+            action.accept(2, 2);
+            // пока идёт чтение, пользователь 2 снял уже прочитанный лайк и поставил новый
+            matrix.remove(2, 2);
+            matrix.add(3, 2);
+        });
+        assertEquals(List.of(3L), matrix.recommend(1, 10, 10, 100));
+    }
+}
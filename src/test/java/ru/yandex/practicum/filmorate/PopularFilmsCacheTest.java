@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.cache.PopularFilmsCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularFilmsCacheTest {
+
+    private static final PopularFilmsCache.Key TOP_TWO = new PopularFilmsCache.Key(2, null, null);
+    private static final PopularFilmsCache.Key TOP_TWO_DRAMA = new PopularFilmsCache.Key(2, 2L, null);
+
+    private SimpleMeterRegistry registry;
+    private PopularFilmsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new PopularFilmsCache(registry, 1024);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void secondRequestIsServedFromCache() {
+        byte[] first = cache.get(TOP_TWO, this::topTwo);
+        byte[] second = cache.get(TOP_TWO, this::topTwo);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    void likeOnFilmInsideWindowInvalidatesIt() {
+        cache.get(TOP_TWO, this::topTwo);
+
+        cache.onLikeChanged(2, 6, key -> true);
+        cache.get(TOP_TWO, this::topTwo);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void likeBelowWindowBoundaryKeepsIt() {
+        cache.get(TOP_TWO, this::topTwo);
+
+        cache.onLikeChanged(7, 3, key -> true);
+        cache.get(TOP_TWO, this::topTwo);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void likeLiftingFilmIntoWindowInvalidatesIt() {
+        cache.get(TOP_TWO, this::topTwo);
+
+        cache.onLikeChanged(7, 6, key -> true);
+        cache.get(TOP_TWO, this::topTwo);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void likeOutsideKeyCategoryKeepsWindow() {
+        cache.get(TOP_TWO_DRAMA, this::topTwo);
+        cache.get(TOP_TWO, this::topTwo);
+
+        cache.onLikeChanged(7, 10, key -> key.genreId() == null);
+        cache.get(TOP_TWO_DRAMA, this::topTwo);
+        cache.get(TOP_TWO, this::topTwo);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void rarelyRequestedWindowIsNotAdmittedOverFrequentOne() {
+        registry = new SimpleMeterRegistry();
+        PopularFilmsCache small = new PopularFilmsCache(registry, 600);
+        PopularFilmsCache.Key hot = new PopularFilmsCache.Key(10, null, null);
+        PopularFilmsCache.Key cold = new PopularFilmsCache.Key(20, null, null);
+        for (int i = 0; i < 3; i++) {
+            small.get(hot, key -> window(500));
+        }
+
+        small.get(cold, key -> window(500));
+        small.get(hot, key -> window(500));
+
+        assertEquals(0.0, registry.get("cache.evictions").counter().count());
+        assertEquals(500.0, registry.get("cache.used.bytes").gauge().value());
+
+        for (int i = 0; i < 5; i++) {
+            small.get(cold, key -> window(500));
+        }
+        assertEquals(1.0, registry.get("cache.evictions").counter().count());
+        assertEquals(1.0, registry.get("cache.size").gauge().value());
+    }
+
+    @Test
+    void concurrentMissesLoadWindowOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(executor.submit(() -> cache.get(TOP_TWO, key -> {
+                    await(release);
+                    return topTwo(key);
+                })));
+            }
+            while (gets("miss") < 8 && gets("hit") == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<byte[]> request : requests) {
+                assertNotNull(request.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void missAfterLikeChangeDoesNotReuseOlderLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<byte[]> stale = executor.submit(() -> cache.get(TOP_TWO, key -> {
+                started.countDown();
+                await(release);
+                return topTwo(key);
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            cache.onLikeChanged(1L, 6, key -> true);
+
+            cache.get(TOP_TWO, this::topTwo);
+            assertEquals(1, loads.get());
+            release.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PopularFilmsCache.Window topTwo(PopularFilmsCache.Key key) {
+        loads.incrementAndGet();
+        return new PopularFilmsCache.Window("[{\"id\":1},{\"id\":2}]".getBytes(), Set.of(1L, 2L), 2, 5, true);
+    }
+
+    private static PopularFilmsCache.Window window(int size) {
+        return new PopularFilmsCache.Window(new byte[size], Set.of(), 0, 0, false);
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Сквозной сценарий для каждой конфигурации хранилища: лайк доходит до рейтинга, кеша популярных
+ * и самого фильма. Подклассы задают контекст и проверяют, что лайк сохранён.
+ */
+abstract class PopularFilmsTests {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Test
+    void shouldRefreshCachedTopAfterLike() throws Exception {
+        String first = createFilm("First of 1901");
+        String second = createFilm("Second of 1901");
+        String user = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"popular@example.com\",\"login\":\"popular\",\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().replaceAll("^\\{\"id\":(\\d+).*", "$1");
+
+        mockMvc.perform(get("/films/popular").param("count", "1").param("year", "1901"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(Long.parseLong(first)));
+        mockMvc.perform(get("/films/" + second)).andExpect(jsonPath("$.likes").isEmpty());
+
+        mockMvc.perform(put("/films/" + second + "/like/" + user)).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular").param("count", "1").param("year", "1901"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(Long.parseLong(second)));
+        mockMvc.perform(get("/films/" + second)).andExpect(jsonPath("$.likes[0]").value(Long.parseLong(user)));
+        verifyStoredLikeCount(Long.parseLong(second), 1);
+    }
+
+    protected void verifyStoredLikeCount(long filmId, long expected) throws Exception {
+    }
+
+    /**
+     * Ждёт, пока счётчик в films.like_count станет ожидаемым: при write-behind лайк попадает в базу со сбросом.
+     */
+    protected static void awaitLikeCount(JdbcTemplate jdbcTemplate, long filmId, long expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        Long likeCount = null;
+        while (System.currentTimeMillis() < deadline) {
+            likeCount = jdbcTemplate.queryForObject("SELECT like_count FROM films WHERE film_id = ?", Long.class, filmId);
+            if (likeCount != null && likeCount == expected) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        assertThat(likeCount).isEqualTo(expected);
+    }
+
+    private String createFilm(String name) throws Exception {
+        return mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"description\":\"d\",\"releaseDate\":\"1901-01-01\","
+                                + "\"duration\":90,\"mpa\":{\"id\":1}}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().replaceAll("^\\{\"id\":(\\d+).*", "$1");
+    }
+}
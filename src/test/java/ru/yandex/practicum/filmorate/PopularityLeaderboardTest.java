@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.PopularityLeaderboard;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularityLeaderboardTest {
+
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new PopularityLeaderboard();
+        leaderboard.reload(Map.of(1L, 5L, 2L, 3L, 3L, 0L));
+    }
+
+    @Test
+    void shouldReturnTopFilmsByLikes() {
+        assertTrue(leaderboard.isLoaded());
+        assertEquals(List.of(1L, 2L), leaderboard.top(2));
+        assertEquals(List.of(1L, 2L, 3L), leaderboard.top(10));
+    }
+
+    @Test
+    void shouldKeepLikesAppliedWhileReloadReadsSnapshot() {
+        leaderboard.reload(() -> {
+            for (int i = 0; i < 4; i++) {
+                leaderboard.increment(3L);
+            }
+            return Map.of(1L, 6L, 2L, 3L, 3L, 0L);
+        });
+        assertEquals(4, leaderboard.getLikes(3L));
+        assertEquals(6, leaderboard.getLikes(1L));
+        assertEquals(List.of(1L, 3L, 2L), leaderboard.top(3));
+    }
+
+    @Test
+    void shouldReorderOnLikeChanges() {
+        leaderboard.increment(3L);
+        leaderboard.increment(3L);
+        leaderboard.increment(3L);
+        leaderboard.increment(3L);
+        leaderboard.decrement(2L);
+        assertEquals(List.of(1L, 3L, 2L), leaderboard.top(3));
+        assertEquals(4L, leaderboard.getLikes(3L));
+        assertEquals(2L, leaderboard.getLikes(2L));
+    }
+
+    @Test
+    void shouldBreakTiesByFilmId() {
+        leaderboard.increment(2L);
+        leaderboard.increment(2L);
+        assertEquals(List.of(1L, 2L), leaderboard.top(2));
+    }
+
+    @Test
+    void shouldRegisterNewFilmsWithZeroLikes() {
+        leaderboard.register(4L);
+        assertEquals(List.of(1L, 2L, 3L, 4L), leaderboard.top(10));
+        leaderboard.decrement(4L);
+        assertEquals(0L, leaderboard.getLikes(4L));
+    }
+
+    @Test
+    void shouldRankWithinGenreAndYear() {
+        leaderboard.reloadCategories(action -> {
+            action.accept(film(1L, 2020, 1L));
+            action.accept(film(2L, 2024, 1L, 2L));
+            action.accept(film(3L, 2024, 2L));
+        });
+        assertTrue(leaderboard.isCategorized());
+        assertEquals(List.of(1L, 2L), leaderboard.top(10, 1L, null));
+        assertEquals(List.of(2L, 3L), leaderboard.top(10, null, 2024));
+        assertEquals(List.of(2L), leaderboard.top(10, 1L, 2024));
+        assertEquals(List.of(), leaderboard.top(10, 5L, null));
+
+        leaderboard.increment(3L);
+        leaderboard.increment(3L);
+        leaderboard.increment(3L);
+        leaderboard.increment(3L);
+        assertEquals(List.of(3L, 2L), leaderboard.top(10, 2L, null));
+        assertEquals(List.of(3L), leaderboard.top(1, null, 2024));
+    }
+
+    @Test
+    void shouldMoveFilmsBetweenCategoriesOnEdit() {
+        leaderboard.reloadCategories(action -> action.accept(film(1L, 2020, 1L)));
+        leaderboard.categorize(film(1L, 2021, 2L));
+        assertEquals(List.of(), leaderboard.top(10, 1L, null));
+        assertEquals(List.of(1L), leaderboard.top(10, 2L, 2021));
+
+        leaderboard.register(4L);
+        leaderboard.categorize(film(4L, 2021, 2L));
+        leaderboard.reload(Map.of(1L, 1L, 4L, 2L));
+        assertEquals(List.of(4L, 1L), leaderboard.top(10, 2L, null));
+    }
+
+    @Test
+    void shouldServeOldCategoriesAndKeepEditsWhileCategoriesReload() {
+        leaderboard.reloadCategories(action -> {
+            action.accept(film(1L, 2020, 1L));
+            action.accept(film(2L, 2020, 1L));
+        });
+        leaderboard.reloadCategories(action -> {
+            assertTrue(leaderboard.matches(1L, 1L, 2020));
+            // лайки и правки фильмов не ждут окончания чтения каталога
+            assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> {
+                leaderboard.increment(2L);
+                leaderboard.categorize(film(1L, 2021, 2L));
+            }).get(5, TimeUnit.SECONDS));
+            action.accept(film(1L, 2020, 1L));
+            action.accept(film(2L, 2020, 1L));
+        });
+        assertEquals(List.of(2L), leaderboard.top(10, 1L, null));
+        assertEquals(List.of(1L), leaderboard.top(10, 2L, 2021));
+        assertEquals(4, leaderboard.getLikes(2L));
+    }
+
+    private static Film film(long id, int year, Long... genres) {
+        Film film = new Film();
+        film.setId(id);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setGenres(Arrays.stream(genres).map(genreId -> new Genre(genreId, null)).toList());
+        return film;
+    }
+}
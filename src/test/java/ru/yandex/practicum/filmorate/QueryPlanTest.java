@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.MpaRatingDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class, MpaRatingDbStorage.class})
+class QueryPlanTest {
+
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final GenreDbStorage genreDbStorage;
+    private final MpaRatingDbStorage mpaRatingDbStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    // обращение к таблице без условия в плане H2: tableScan или проход индекса целиком
+    private static final Pattern FULL_READ = Pattern.compile("/\\* PUBLIC\\.[\\w.]+ \\*/");
+
+    // намеренно полные чтения: выгрузка всех записей, прогрев индексов при старте и справочники
+    private static final Set<String> FULL_READ_ALLOWED = Set.of(
+            // findAll
+            "SELECT * FROM users",
+            "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id",
+            // forEachFriendship, forEachLike, getLikeCounts
+            "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id",
+            "SELECT film_id, user_id FROM likes ORDER BY film_id, user_id",
+            "SELECT film_id, like_count AS likes FROM films ORDER BY film_id",
+            // reconcileLikeCounts
+            "UPDATE films f SET like_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id) "
+                    + "WHERE like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)",
+            // getPopularFilms: индекс по like_count обходится сверху и обрывается на LIMIT
+            "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.mpa_rating_id "
+                    + "ORDER BY f.like_count DESC, f.film_id LIMIT ?",
+            // reload справочников
+            "SELECT genre_id as id, name FROM genres ORDER BY genre_id",
+            "SELECT mpa_rating_id as id, name FROM mpa_ratings ORDER BY mpa_rating_id"
+    );
+
+    private final Set<Method> invoked = new HashSet<>();
+
+    @Test
+    void noStorageQueryDegradesToFullRead() {
+        jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        List<String> statements;
+        try {
+            exerciseStorages(recording(FilmStorage.class, filmDbStorage),
+                    recording(UserStorage.class, userDbStorage),
+                    recording(GenreStorage.class, genreDbStorage),
+                    recording(MpaRatingStorage.class, mpaRatingDbStorage));
+            statements = jdbcTemplate.queryForList(
+                    "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS", String.class).stream()
+                    .filter(sql -> sql.matches("(?is)^(SELECT|INSERT|UPDATE|DELETE)\\s.*"))
+                    .filter(sql -> !sql.contains("INFORMATION_SCHEMA"))
+                    .toList();
+        } finally {
+            jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        }
+        assertThat(notInvoked(FilmStorage.class, UserStorage.class, GenreStorage.class, MpaRatingStorage.class))
+                .as("storage methods not exercised").isEmpty();
+        assertThat(statements).isNotEmpty();
+
+        Map<String, String> fullReads = new LinkedHashMap<>();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            if (FULL_READ.matcher(plan).find() && !FULL_READ_ALLOWED.contains(sql)) {
+                fullReads.put(sql, plan);
+            }
+        }
+        assertThat(fullReads).as("queries reading a whole table or index").isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T recording(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            invoked.add(method);
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private List<String> notInvoked(Class<?>... types) {
+        List<String> missing = new ArrayList<>();
+        for (Class<?> type : types) {
+            for (Method method : type.getMethods()) {
+                if (!method.isDefault() && !Modifier.isStatic(method.getModifiers()) && !invoked.contains(method)) {
+                    missing.add(type.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        return missing;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                int count = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= count; i++) {
+                    ps.setObject(i, 1);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                    return plan.toString();
+                }
+            }
+        });
+    }
+
+    private void exerciseStorages(FilmStorage filmStorage, UserStorage userStorage,
+                                  GenreStorage genreStorage, MpaRatingStorage mpaRatingStorage) {
+        User user = new User();
+        user.setEmail("test1@example.com");
+        user.setLogin("testLogin1");
+        user.setName("Test User1");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        User first = userStorage.add(user);
+        User second = userStorage.addAll(new ArrayList<>(List.of(User.builder().email("test2@example.com")
+                .login("testLogin2").name("Test User2").birthday(LocalDate.of(1991, 1, 1)).build()))).get(0);
+        userStorage.update(first);
+        userStorage.findById(first.getId());
+        userStorage.existsById(first.getId());
+        userStorage.findByIds(List.of(first.getId(), second.getId()));
+        userStorage.findAll();
+        userStorage.findPage(0L, 10);
+        userStorage.exportAll(10, u -> { });
+        userStorage.addFriend(first.getId(), second.getId());
+        userStorage.getFriends(first.getId());
+        userStorage.getCommonFriends(first.getId(), second.getId());
+        userStorage.getSuggestedFriends(first.getId(), 10);
+        userStorage.forEachFriendship((userId, friendId) -> { });
+        userStorage.removeFriend(first.getId(), second.getId());
+
+        Film film = new Film();
+        film.setName("Test Film");
+        film.setDescription("Test movie.");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, "G"));
+        film.setGenres(List.of(new Genre(1L, null)));
+        Film saved = filmStorage.add(film);
+        filmStorage.addAll(new ArrayList<>(List.of(film)));
+        saved.setGenres(List.of(new Genre(2L, null)));
+        filmStorage.update(saved);
+        filmStorage.findById(saved.getId());
+        filmStorage.findByIds(List.of(saved.getId()));
+        filmStorage.existsById(saved.getId());
+        filmStorage.findAll();
+        filmStorage.findPage(0L, 10);
+        filmStorage.exportAll(10, f -> { });
+        filmStorage.addLike(saved.getId(), first.getId());
+        filmStorage.hasLike(saved.getId(), first.getId());
+        filmStorage.getLikes(List.of(saved.getId()));
+        filmStorage.forEachLike((filmId, userId) -> { });
+        filmStorage.removeLike(saved.getId(), first.getId());
+        filmStorage.applyLikeChanges(Map.of(saved.getId(), Set.of(first.getId())), Map.of(saved.getId(), Set.of(second.getId())));
+        filmStorage.getPopularFilms(10);
+        filmStorage.reconcileLikeCounts();
+        filmStorage.getLikeCounts();
+        filmStorage.getFilmsByGenre(2L);
+        filmStorage.getFilmsByGenrePage(2L, 0L, 10);
+
+        genreStorage.reload();
+        genreStorage.findAll();
+        genreStorage.findById(1);
+        mpaRatingStorage.reload();
+        mpaRatingStorage.findAll();
+        mpaRatingStorage.findById(1L);
+    }
+}
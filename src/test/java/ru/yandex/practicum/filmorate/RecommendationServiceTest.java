@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.storage.impl.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationServiceTest {
+
+    @Test
+    void shouldLoadLikeMatrixOnceForConcurrentRequests() throws Exception {
+        AtomicInteger scans = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(null, null) {
+            @Override
+            public void forEachLike(LikeConsumer action) {
+                scans.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.forEachLike(action);
+            }
+        };
+        RecommendationService service = new RecommendationService(storage, new LikeMatrix(), 50, 10000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long userId = i + 1;
+                requests.add(executor.submit(() -> service.getRecommendations(userId, 10)));
+            }
+            while (scans.get() == 0) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> request : requests) {
+                request.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, scans.get());
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
+import ru.yandex.practicum.filmorate.metrics.StorageMetricsPostProcessor;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageMetricsPostProcessorTest {
+
+    private MeterRegistry registry;
+    private StorageMetricsPostProcessor postProcessor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", registry));
+        postProcessor = new StorageMetricsPostProcessor(beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void shouldTimeStorageMethodsByStorageAndMethod() {
+        GenreStorage storage = (GenreStorage) postProcessor.postProcessAfterInitialization(new StubGenreStorage(), "genreStorage");
+
+        storage.findAll();
+        storage.findAll();
+        storage.findById(1);
+
+        assertEquals(2, timer("findAll", "none").count());
+        assertEquals(1, timer("findById", "none").count());
+    }
+
+    @Test
+    void shouldTagFailedCallsWithExceptionName() {
+        GenreStorage storage = (GenreStorage) postProcessor.postProcessAfterInitialization(new StubGenreStorage(), "genreStorage");
+
+        assertThrows(EntityNotFoundException.class, () -> storage.findById(-1));
+
+        assertEquals(1, timer("findById", "EntityNotFoundException").count());
+    }
+
+    @Test
+    void shouldNotWrapTheSameStorageTwice() {
+        Object proxy = postProcessor.postProcessAfterInitialization(new StubGenreStorage(), "genreDbStorage");
+        GenreStorage storage = (GenreStorage) postProcessor.postProcessAfterInitialization(proxy, "genreStorage");
+
+        storage.findAll();
+
+        assertEquals(1, timer("findAll", "none").count());
+    }
+
+    private Timer timer(String method, String exception) {
+        return registry.get(StorageMetricsPostProcessor.METRIC_NAME)
+                .tags("storage", "StubGenreStorage", "method", method, "exception", exception)
+                .timer();
+    }
+
+    static class StubGenreStorage implements GenreStorage {
+
+        @Override
+        public List<Genre> findAll() {
+            return List.of(new Genre(1L, "Комедия"));
+        }
+
+        @Override
+        public Optional<Genre> findById(int id) {
+            if (id < 0) {
+                throw new EntityNotFoundException("Жанр не найден");
+            }
+            return Optional.of(new Genre((long) id, "Комедия"));
+        }
+
+        @Override
+        public void reload() {
+        }
+    }
+}
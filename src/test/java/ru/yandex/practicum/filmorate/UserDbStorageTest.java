@@ -10,6 +10,7 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -166,4 +167,156 @@ class UserDbStorageTest {
         assertThat(commonFriends).hasSize(1);
         assertThat(commonFriends.get(0).getId()).isEqualTo(savedUser3.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetFriendsLoadsFriendIds() {
+        User user1 = new User();
+        user1.setEmail("test1@example.com");
+        user1.setLogin("testLogin1");
+        user1.setName("Test User1");
+        user1.setBirthday(LocalDate.of(1990, 1, 1));
+        User savedUser1 = userStorage.add(user1);
+        User user2 = new User();
+        user2.setEmail("test2@example.com");
+        user2.setLogin("testLogin2");
+        user2.setName("Test User2");
+        user2.setBirthday(LocalDate.of(1991, 1, 1));
+        User savedUser2 = userStorage.add(user2);
+        User user3 = new User();
+        user3.setEmail("test3@example.com");
+        user3.setLogin("testLogin3");
+        user3.setName("Test User3");
+        user3.setBirthday(LocalDate.of(1992, 1, 1));
+        User savedUser3 = userStorage.add(user3);
+        userStorage.addFriend(savedUser1.getId(), savedUser2.getId());
+        userStorage.addFriend(savedUser1.getId(), savedUser3.getId());
+        userStorage.addFriend(savedUser2.getId(), savedUser3.getId());
+        List<User> friends = userStorage.getFriends(savedUser1.getId());
+        assertThat(friends).hasSize(2);
+        User friend2 = friends.stream().filter(u -> u.getId().equals(savedUser2.getId())).findFirst().orElseThrow();
+        User friend3 = friends.stream().filter(u -> u.getId().equals(savedUser3.getId())).findFirst().orElseThrow();
+        assertThat(friend2.getFriends()).containsExactly(savedUser3.getId());
+        assertThat(friend3.getFriends()).isEmpty();
+    }
+
+    @Test
+    void testFindPage() {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("test" + i + "@example.com");
+            user.setLogin("testLogin" + i);
+            user.setName("Test User" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userStorage.add(user);
+        }
+        List<User> firstPage = userStorage.findPage(null, 2);
+        assertThat(firstPage).hasSize(2);
+        List<User> secondPage = userStorage.findPage(firstPage.get(1).getId(), 2);
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).getLogin()).isEqualTo("testLogin3");
+    }
+
+    @Test
+    void testExportAll() {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("test" + i + "@example.com");
+            user.setLogin("testLogin" + i);
+            user.setName("Test User" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            userStorage.add(user);
+        }
+        List<User> exported = new ArrayList<>();
+        userStorage.exportAll(2, exported::add);
+        assertThat(exported).extracting(User::getLogin).containsExactly("testLogin1", "testLogin2", "testLogin3");
+    }
+
+    @Test
+    void testAddAllUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("test" + i + "@example.com");
+            user.setLogin("testLogin" + i);
+            user.setName("Test User" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            users.add(user);
+        }
+        List<User> saved = userStorage.addAll(users);
+        assertThat(saved).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(userStorage.findById(saved.get(1).getId()))
+                .isPresent()
+                .hasValueSatisfying(User -> assertThat(User).hasFieldOrPropertyWithValue("login", "testLogin2"));
+    }
+
+    @Test
+    void testExistsByIdAndDuplicateFriend() {
+        User user1 = new User();
+        user1.setEmail("test1@example.com");
+        user1.setLogin("testLogin1");
+        user1.setName("Test User1");
+        user1.setBirthday(LocalDate.of(1990, 1, 1));
+        User savedUser1 = userStorage.add(user1);
+        User user2 = new User();
+        user2.setEmail("test2@example.com");
+        user2.setLogin("testLogin2");
+        user2.setName("Test User2");
+        user2.setBirthday(LocalDate.of(1991, 1, 1));
+        User savedUser2 = userStorage.add(user2);
+        assertThat(userStorage.existsById(savedUser1.getId())).isTrue();
+        assertThat(userStorage.existsById(-1L)).isFalse();
+        assertThat(userStorage.addFriend(savedUser1.getId(), savedUser2.getId())).isTrue();
+        assertThat(userStorage.addFriend(savedUser1.getId(), savedUser2.getId())).isFalse();
+        assertThat(userStorage.getFriends(savedUser1.getId())).hasSize(1);
+        assertThat(userStorage.removeFriend(savedUser1.getId(), savedUser2.getId())).isTrue();
+        assertThat(userStorage.removeFriend(savedUser1.getId(), savedUser2.getId())).isFalse();
+    }
+
+    @Test
+    void testFindByIdsAndForEachFriendship() {
+        List<User> saved = userStorage.addAll(new ArrayList<>(List.of(
+                User.builder().email("test1@example.com").login("testLogin1").name("Test User1")
+                        .birthday(LocalDate.of(1990, 1, 1)).build(),
+                User.builder().email("test2@example.com").login("testLogin2").name("Test User2")
+                        .birthday(LocalDate.of(1991, 1, 1)).build())));
+        Long firstId = saved.get(0).getId();
+        Long secondId = saved.get(1).getId();
+        userStorage.addFriend(firstId, secondId);
+
+        List<User> found = userStorage.findByIds(List.of(secondId, -1L, firstId));
+        assertThat(found).extracting(User::getId).containsExactly(secondId, firstId);
+        assertThat(found.get(1).getFriends()).containsExactly(secondId);
+
+        List<List<Long>> friendships = new ArrayList<>();
+        userStorage.forEachFriendship((userId, friendId) -> friendships.add(List.of(userId, friendId)));
+        assertThat(friendships).containsExactly(List.of(firstId, secondId));
+    }
+
+    @Test
+    void testGetSuggestedFriends() {
+        List<User> saved = userStorage.addAll(new ArrayList<>(List.of(
+                User.builder().email("test1@example.com").login("testLogin1").name("Test User1")
+                        .birthday(LocalDate.of(1990, 1, 1)).build(),
+                User.builder().email("test2@example.com").login("testLogin2").name("Test User2")
+                        .birthday(LocalDate.of(1991, 1, 1)).build(),
+                User.builder().email("test3@example.com").login("testLogin3").name("Test User3")
+                        .birthday(LocalDate.of(1992, 1, 1)).build(),
+                User.builder().email("test4@example.com").login("testLogin4").name("Test User4")
+                        .birthday(LocalDate.of(1993, 1, 1)).build(),
+                User.builder().email("test5@example.com").login("testLogin5").name("Test User5")
+                        .birthday(LocalDate.of(1994, 1, 1)).build())));
+        List<Long> ids = saved.stream().map(User::getId).toList();
+        userStorage.addFriend(ids.get(0), ids.get(1));
+        userStorage.addFriend(ids.get(0), ids.get(2));
+        userStorage.addFriend(ids.get(1), ids.get(2));
+        userStorage.addFriend(ids.get(1), ids.get(3));
+        userStorage.addFriend(ids.get(1), ids.get(4));
+        userStorage.addFriend(ids.get(2), ids.get(4));
+        userStorage.addFriend(ids.get(2), ids.get(0));
+
+        assertThat(userStorage.getSuggestedFriends(ids.get(0), 10)).extracting(User::getId)
+                .containsExactly(ids.get(4), ids.get(3));
+        assertThat(userStorage.getSuggestedFriends(ids.get(0), 1)).extracting(User::getId)
+                .containsExactly(ids.get(4));
+    }
+}
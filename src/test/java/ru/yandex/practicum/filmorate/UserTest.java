@@ -32,6 +32,17 @@ public class UserTest {
         assertTrue(violations.isEmpty(), "Valid user should have no violations");
     }
 
+    @Test
+    void shouldFailWhenLoginOrNameExceedColumnLength() {
+        String tooLong = "a".repeat(51);
+        User longLogin = new User(null, "test@example.com", tooLong, "Test User",
+                LocalDate.of(2000, 1, 1), new HashSet<>());
+        User longName = new User(null, "test@example.com", "testuser", tooLong,
+                LocalDate.of(2000, 1, 1), new HashSet<>());
+        assertFalse(validator.validate(longLogin).isEmpty(), "Login longer than 50 characters should cause violation");
+        assertFalse(validator.validate(longName).isEmpty(), "Name longer than 50 characters should cause violation");
+    }
+
     @Test
     void shouldFailWhenEmailIsEmpty() {
         User user = new User(null, "", "testuser", "Test User",
@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.LikeEventLog;
+import ru.yandex.practicum.filmorate.storage.impl.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.impl.WriteBehindFilmStorage;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class})
+class WriteBehindFilmStorageTest {
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userStorage;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLikesAreBufferedUntilFlush() throws Exception {
+        Long filmId = createFilm();
+        Long userId = createUser("first");
+
+        WriteBehindFilmStorage storage = new WriteBehindFilmStorage(filmDbStorage,
+                new LikeEventLog(tempDir.resolve("likes.log")));
+        assertThat(storage.addLike(filmId, userId)).isTrue();
+        assertThat(storage.addLike(filmId, userId)).isFalse();
+
+        assertThat(filmDbStorage.hasLike(filmId, userId)).isFalse();
+        assertThat(storage.findById(filmId).orElseThrow().getLikes()).containsExactly(userId);
+        assertThat(storage.getLikeCounts()).containsEntry(filmId, 1L);
+        assertThat(storage.getLikes(List.of(filmId))).containsEntry(filmId, Set.of(userId));
+
+        storage.flush();
+        assertThat(filmDbStorage.hasLike(filmId, userId)).isTrue();
+        assertThat(filmDbStorage.reconcileLikeCounts()).isZero();
+        storage.close();
+    }
+
+    @Test
+    void testLikeCountsAreNotDoubledAroundFlush() throws Exception {
+        Long filmId = createFilm();
+        Long firstUserId = createUser("first");
+        Long secondUserId = createUser("second");
+
+        WriteBehindFilmStorage storage = new WriteBehindFilmStorage(filmDbStorage,
+                new LikeEventLog(tempDir.resolve("likes.log")));
+        storage.addLike(filmId, firstUserId);
+        storage.flush();
+        assertThat(storage.addLike(filmId, firstUserId)).isFalse();
+        storage.addLike(filmId, secondUserId);
+
+        assertThat(storage.getLikeCounts()).containsEntry(filmId, 2L);
+        storage.flush();
+        assertThat(storage.getLikeCounts()).containsEntry(filmId, 2L);
+        storage.close();
+    }
+
+    @Test
+    void testLikeAndUnlikeCancelOut() throws Exception {
+        Long filmId = createFilm();
+        Long userId = createUser("first");
+
+        WriteBehindFilmStorage storage = new WriteBehindFilmStorage(filmDbStorage,
+                new LikeEventLog(tempDir.resolve("likes.log")));
+        assertThat(storage.addLike(filmId, userId)).isTrue();
+        assertThat(storage.removeLike(filmId, userId)).isTrue();
+        assertThat(storage.hasLike(filmId, userId)).isFalse();
+        assertThat(storage.removeLike(filmId, userId)).isFalse();
+
+        storage.flush();
+        assertThat(filmDbStorage.hasLike(filmId, userId)).isFalse();
+        storage.close();
+    }
+
+    @Test
+    void testPendingLikesAreRecoveredFromLog() throws Exception {
+        Long filmId = createFilm();
+        Long firstUserId = createUser("first");
+        Long secondUserId = createUser("second");
+        Path logPath = tempDir.resolve("likes.log");
+
+        WriteBehindFilmStorage crashed = new WriteBehindFilmStorage(filmDbStorage, new LikeEventLog(logPath));
+        crashed.addLike(filmId, firstUserId);
+        crashed.addLike(filmId, secondUserId);
+        crashed.removeLike(filmId, secondUserId);
+
+        WriteBehindFilmStorage recovered = new WriteBehindFilmStorage(filmDbStorage, new LikeEventLog(logPath));
+        assertThat(recovered.findById(filmId).orElseThrow().getLikes()).containsExactly(firstUserId);
+
+        recovered.flush();
+        assertThat(filmDbStorage.findById(filmId).orElseThrow().getLikes()).containsExactly(firstUserId);
+        recovered.close();
+    }
+
+    @Test
+    void testUnlikeAfterFlushedLikeSurvivesCrashBeforeLogCleanup() throws Exception {
+        Long filmId = createFilm();
+        Long userId = createUser("first");
+        Path logPath = tempDir.resolve("likes.log");
+
+        // сброс закоммитил лайк, но процесс упал раньше, чем удалил .flushing
+        WriteBehindFilmStorage crashed = new WriteBehindFilmStorage(filmDbStorage, new LikeEventLog(logPath) {
+            @Override
+            public synchronized void completeFlush() {
+            }
+        });
+        crashed.addLike(filmId, userId);
+        crashed.flush();
+        assertThat(filmDbStorage.hasLike(filmId, userId)).isTrue();
+        assertThat(crashed.removeLike(filmId, userId)).isTrue();
+
+        WriteBehindFilmStorage recovered = new WriteBehindFilmStorage(filmDbStorage, new LikeEventLog(logPath));
+        assertThat(recovered.hasLike(filmId, userId)).isFalse();
+        assertThat(recovered.getLikeCounts()).containsEntry(filmId, 0L);
+
+        recovered.flush();
+        assertThat(filmDbStorage.hasLike(filmId, userId)).isFalse();
+        recovered.close();
+    }
+
+    @Test
+    void testConcurrentLikesAreAllDurable() throws Exception {
+        Long filmId = createFilm();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            userIds.add(createUser("user" + i));
+        }
+        Path logPath = tempDir.resolve("likes.log");
+
+        WriteBehindFilmStorage crashed = new WriteBehindFilmStorage(filmDbStorage, new LikeEventLog(logPath));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Long userId : userIds) {
+                results.add(executor.submit(() -> crashed.addLike(filmId, userId)));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        WriteBehindFilmStorage recovered = new WriteBehindFilmStorage(filmDbStorage, new LikeEventLog(logPath));
+        assertThat(recovered.findById(filmId).orElseThrow().getLikes()).containsExactlyInAnyOrderElementsOf(userIds);
+        recovered.close();
+    }
+
+    private Long createFilm() {
+        Film film = new Film();
+        film.setName("Test Film");
+        film.setDescription("Test movie.");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new MpaRating(1L, "MPA Rating"));
+        return filmDbStorage.add(film).getId();
+    }
+
+    private Long createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@test.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userStorage.add(user).getId();
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+@SpringBootTest(classes = FilmorateApplication.class, properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval-ms=50"})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class WriteBehindPopularFilmsTests extends PopularFilmsTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void likeLog(DynamicPropertyRegistry registry) throws IOException {
+        // свой журнал на каждый запуск: чужие незавершённые лайки не должны воспроизводиться в новой базе
+        String logPath = Files.createTempDirectory("filmorate-likes").resolve("likes.log").toString();
+        registry.add("filmorate.likes.write-behind.log-path", () -> logPath);
+    }
+
+    @Override
+    protected void verifyStoredLikeCount(long filmId, long expected) throws Exception {
+        awaitLikeCount(jdbcTemplate, filmId, expected);
+    }
+}